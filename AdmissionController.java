@@ -0,0 +1,148 @@
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Допуск клиентов у входа.
+ *
+ * Официант, взяв клиента из очереди, спрашивает контроллер, стоит ли его сажать.
+ * За каждым допущенным клиентом резервируется место в очереди кухни, пока
+ * официант несёт заказ, — поэтому кухня не отклоняет заказы, уже прошедшие
+ * два перехода. Ожидание на кухне прогнозируется на момент прихода официанта:
+ * очередь с резервом минус то, что повара успеют за два перехода.
+ * Время готовки — среднее по диапазону Dish (скользящее по принятым заказам).
+ *
+ * ADMIT — место на кухне есть и заказ успеет к сроку,
+ * DEFER — мест на кухне нет: клиент ждёт в очереди, не занимая стол,
+ * REFUSE — к сроку не успеть: клиент уходит сразу, не занимая стол и официанта.
+ */
+public class AdmissionController {
+
+    public enum Decision {
+        ADMIT,
+        DEFER,
+        REFUSE
+    }
+
+    private static final double COOK_TIME_SMOOTHING = 0.05;
+
+    private final int kitchenCapacity;
+    private final long walkMs;
+    private final long deadlineMs = TimeUnit.SECONDS.toMillis(Constants.ORDER_TIMEOUT_SEC);
+
+    private final AtomicInteger enRoute = new AtomicInteger(0);
+    private final AtomicInteger admitted = new AtomicInteger(0);
+    private final AtomicInteger deferred = new AtomicInteger(0);
+    private final AtomicInteger refused = new AtomicInteger(0);
+    // Биты double: скользящее среднее обновляется CAS из нескольких потоков
+    private final AtomicLong avgCookBits = new AtomicLong();
+
+    public AdmissionController(int kitchenCapacity, long walkMs) {
+        this.kitchenCapacity = kitchenCapacity;
+        this.walkMs = walkMs;
+        this.avgCookBits.set(Double.doubleToLongBits(Dish.SOUP.getMeanTime()));
+    }
+
+    /**
+     * Решить судьбу клиента, только что взятого из очереди.
+     * После ADMIT официант обязан вызвать handedOver(), когда отдаст заказ кухне.
+     */
+    public Decision decide(Waiter.ClientRequest request, int kitchenQueueDepth, int cooks) {
+        double ownCook = expectedCookTime(request);
+        int cookCount = Math.max(1, cooks);
+
+        while (true) {
+            double avgCook = getAvgCookMs();
+            int pending = enRoute.get();
+            int reserved = kitchenQueueDepth + pending;
+            // Очередь кухни к приходу официанта
+            double drained = cookCount * (2.0 * walkMs) / avgCook;
+            double depthAtHandOver = Math.max(0, reserved - drained);
+
+            if (reserved >= kitchenCapacity) {
+                deferred.incrementAndGet();
+                return Decision.DEFER;
+            }
+            if (depthAtHandOver * avgCook / cookCount + ownCook > deadlineMs) {
+                refused.incrementAndGet();
+                return Decision.REFUSE;
+            }
+            // Резерв — CAS: параллельные официанты не займут одно место на кухне
+            if (enRoute.compareAndSet(pending, pending + 1)) {
+                admitted.incrementAndGet();
+                updateAvgCookMs(ownCook);
+                return Decision.ADMIT;
+            }
+        }
+    }
+
+    /**
+     * decide для клиента, взятого из начала queue, — так решают все официанты:
+     * отложенный возвращается в начало очереди, а если места там уже нет
+     * (очередь успели заполнить), он уходит и решение — REFUSE.
+     */
+    public Decision admit(Waiter.ClientRequest request, BlockingDeque<Waiter.ClientRequest> queue,
+                          int kitchenQueueDepth, int cooks) {
+        Decision decision = decide(request, kitchenQueueDepth, cooks);
+        if (decision == Decision.DEFER && !queue.offerFirst(request)) {
+            refuseDeferred();
+            return Decision.REFUSE;
+        }
+        return decision;
+    }
+
+    /**
+     * Заказ допущенного клиента дошёл до кухни (принят или нет).
+     */
+    public void handedOver() {
+        enRoute.decrementAndGet();
+    }
+
+    /**
+     * Отложенного клиента некуда вернуть (очередь заполнилась) — он уходит.
+     */
+    public void refuseDeferred() {
+        refused.incrementAndGet();
+    }
+
+    public int getAdmitted() {
+        return admitted.get();
+    }
+
+    public int getDeferred() {
+        return deferred.get();
+    }
+
+    public int getRefused() {
+        return refused.get();
+    }
+
+    private double getAvgCookMs() {
+        return Double.longBitsToDouble(avgCookBits.get());
+    }
+
+    private void updateAvgCookMs(double cookMs) {
+        while (true) {
+            long bits = avgCookBits.get();
+            double avg = Double.longBitsToDouble(bits);
+            double updated = avg + COOK_TIME_SMOOTHING * (cookMs - avg);
+            if (avgCookBits.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    private static double expectedCookTime(Waiter.ClientRequest request) {
+        double cookTime = request.dish().getMeanTime();
+        if (request.vip()) {
+            cookTime *= Constants.VIP_COOK_MULTIPLIER;
+        }
+        return cookTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Допущено: " + admitted.get() + ", отложено: " + deferred.get() + ", отказ у входа: " + refused.get();
+    }
+}
@@ -0,0 +1,255 @@
+import java.util.SplittableRandom;
+
+/**
+ * Процесс прихода клиентов: когда приходит следующая группа и сколько в ней человек.
+ *
+ * Процесс открытый: приходы не ждут, пока ресторан освободится, — при частоте
+ * выше пропускной способности очередь клиентов заполняется и лишние уходят.
+ * Реализации без состояния: случайность приходит снаружи (поток ARRIVALS
+ * генератора), поэтому один процесс можно отдать нескольким генераторам и потокам.
+ *
+ * Задаётся ClientGenerator.setArrivalProcess или свойством
+ * -Drestaurant.arrivals (формат — parse).
+ */
+public interface ArrivalProcess {
+
+    /**
+     * Пауза до следующей группы, мс, если предыдущая пришла в nowMs от открытия.
+     */
+    double nextGapMs(double nowMs, SplittableRandom random);
+
+    /**
+     * Сколько человек в группе.
+     */
+    int partySize(SplittableRandom random);
+
+    /**
+     * Тот же процесс, но в factor раз чаще: параллельные генераторы
+     * с процессом scaled(1.0 / n) вместе дают исходную частоту.
+     */
+    ArrivalProcess scaled(double factor);
+
+    /**
+     * Группы размера до maxSize со средним meanSize: чаще по одному,
+     * изредка компании (геометрическое распределение, обрезанное на maxSize).
+     */
+    default ArrivalProcess withParties(double meanSize, int maxSize) {
+        if (meanSize < 1 || maxSize < 1) {
+            throw new IllegalArgumentException("Средняя группа от 1 человека: " + meanSize + ", до " + maxSize);
+        }
+        return new Parties(this, meanSize, maxSize);
+    }
+
+    // ==================== ПРОЦЕССЫ ====================
+
+    /**
+     * Прежний генератор: пауза CLIENT_GEN_MIN_DELAY_MS..CLIENT_GEN_MAX_DELAY_MS,
+     * группы по 1–2. С тем же зерном повторяет прежние смены.
+     */
+    static ArrivalProcess classic() {
+        return uniform(Constants.CLIENT_GEN_MIN_DELAY_MS, Constants.CLIENT_GEN_MAX_DELAY_MS, 1, 2);
+    }
+
+    /**
+     * Равномерная пауза от minGapMs (включая) до maxGapMs (не включая),
+     * группы от minParty до maxParty человек.
+     */
+    static ArrivalProcess uniform(int minGapMs, int maxGapMs, int minParty, int maxParty) {
+        if (minGapMs < 0 || maxGapMs <= minGapMs || minParty < 1 || maxParty < minParty) {
+            throw new IllegalArgumentException("Пауза " + minGapMs + ".." + maxGapMs
+                + " мс, группы " + minParty + ".." + maxParty);
+        }
+        return new Uniform(minGapMs, maxGapMs, minParty, maxParty, 1);
+    }
+
+    /**
+     * Пуассоновский поток: partiesPerSecond групп в секунду, паузы экспоненциальные.
+     */
+    static ArrivalProcess poisson(double partiesPerSecond) {
+        return poisson(partiesPerSecond, null);
+    }
+
+    /**
+     * Пуассоновский поток с частотой по кривой: в среднем partiesPerSecond
+     * групп в секунду, распределённых по периоду как curve (null — ровно).
+     */
+    static ArrivalProcess poisson(double partiesPerSecond, RateCurve curve) {
+        if (!(partiesPerSecond > 0)) {
+            throw new IllegalArgumentException("Частота приходов должна быть положительной: " + partiesPerSecond);
+        }
+        return new Poisson(partiesPerSecond, curve);
+    }
+
+    /**
+     * Пауза Uniform в gapScale раз длиннее вытянутой из потока —
+     * так при gapScale 1 вытягивается то же число, что у прежнего генератора.
+     */
+    record Uniform(int minGapMs, int maxGapMs, int minParty, int maxParty, double gapScale)
+            implements ArrivalProcess {
+
+        @Override
+        public double nextGapMs(double nowMs, SplittableRandom random) {
+            return random.nextInt(minGapMs, maxGapMs) * gapScale;
+        }
+
+        @Override
+        public int partySize(SplittableRandom random) {
+            return random.nextInt(minParty, maxParty + 1);
+        }
+
+        @Override
+        public ArrivalProcess scaled(double factor) {
+            return new Uniform(minGapMs, maxGapMs, minParty, maxParty, gapScale / factor);
+        }
+
+        @Override
+        public String toString() {
+            return "равномерно " + minGapMs * gapScale + ".." + maxGapMs * gapScale
+                + " мс, группы " + minParty + ".." + maxParty;
+        }
+    }
+
+    /**
+     * Пуассоновский поток. С кривой — прореживание (Льюис — Шедлер):
+     * кандидаты идут с пиковой частотой, а принимается доля, равная
+     * текущему множителю кривой к пиковому.
+     */
+    record Poisson(double partiesPerSecond, RateCurve curve) implements ArrivalProcess {
+
+        @Override
+        public double nextGapMs(double nowMs, SplittableRandom random) {
+            if (curve == null) {
+                return exponential(random, 1000 / partiesPerSecond);
+            }
+            double peak = curve.getPeak();
+            double meanGapMs = 1000 / (partiesPerSecond * peak);
+            double t = nowMs;
+            while (true) {
+                t += exponential(random, meanGapMs);
+                if (random.nextDouble() * peak < curve.at(t)) {
+                    return t - nowMs;
+                }
+            }
+        }
+
+        private static double exponential(SplittableRandom random, double mean) {
+            return -Math.log(1 - random.nextDouble()) * mean;
+        }
+
+        @Override
+        public int partySize(SplittableRandom random) {
+            return 1;
+        }
+
+        @Override
+        public ArrivalProcess scaled(double factor) {
+            return new Poisson(partiesPerSecond * factor, curve);
+        }
+
+        @Override
+        public String toString() {
+            String shape;
+            if (curve == null) {
+                shape = "";
+            } else {
+                shape = ", " + curve;
+            }
+            return "Пуассон " + partiesPerSecond + " групп/с" + shape;
+        }
+    }
+
+    /**
+     * Паузы процесса base, размер группы — 1 + геометрическое, не больше maxSize.
+     */
+    record Parties(ArrivalProcess base, double meanSize, int maxSize) implements ArrivalProcess {
+
+        @Override
+        public double nextGapMs(double nowMs, SplittableRandom random) {
+            return base.nextGapMs(nowMs, random);
+        }
+
+        @Override
+        public int partySize(SplittableRandom random) {
+            if (meanSize <= 1 || maxSize == 1) {
+                return 1;
+            }
+            // Число «ещё одного человека» до первой неудачи, успех — 1 - 1/meanSize
+            double extra = Math.log(1 - random.nextDouble()) / Math.log(1 - 1 / meanSize);
+            return (int) Math.min(maxSize, 1 + extra);
+        }
+
+        @Override
+        public ArrivalProcess scaled(double factor) {
+            return new Parties(base.scaled(factor), meanSize, maxSize);
+        }
+
+        @Override
+        public String toString() {
+            return base + ", группы в среднем " + meanSize + " (до " + maxSize + ")";
+        }
+    }
+
+    // ==================== НАСТРОЙКА СТРОКОЙ ====================
+
+    /**
+     * Процесс по описанию из частей через запятую:
+     * classic — прежний генератор; poisson:R — R групп в секунду;
+     * rush:R[:D] — в среднем R групп в секунду с обеденным и вечерним пиком
+     * за день из D секунд (по умолчанию 600); party:M[:N] — группы в среднем
+     * по M человек, не больше N (по умолчанию 8).
+     * Например: rush:200,party:2.5.
+     */
+    static ArrivalProcess parse(String spec) {
+        ArrivalProcess process = null;
+        for (String part : spec.split(",")) {
+            String[] fields = part.trim().split(":");
+            switch (fields[0]) {
+                case "classic" -> process = classic();
+                case "poisson" -> process = poisson(number(fields, 1, Double.NaN));
+                case "rush" -> process = poisson(number(fields, 1, Double.NaN),
+                    RateCurve.lunchAndDinner((long) (number(fields, 2, 600) * 1000)));
+                case "party" -> {
+                    if (process == null) {
+                        throw new IllegalArgumentException("party: сначала процесс — " + spec);
+                    }
+                    process = process.withParties(number(fields, 1, Double.NaN), (int) number(fields, 2, 8));
+                }
+                default -> throw new IllegalArgumentException("неизвестный процесс прихода: " + part);
+            }
+        }
+        if (process == null) {
+            throw new IllegalArgumentException("пустое описание приходов");
+        }
+        return process;
+    }
+
+    private static double number(String[] fields, int index, double fallback) {
+        if (index >= fields.length) {
+            if (Double.isNaN(fallback)) {
+                throw new IllegalArgumentException(fields[0] + ": нет числа");
+            }
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(fields[index].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(fields[0] + ": не число — " + fields[index]);
+        }
+    }
+
+    /**
+     * Процесс из свойства restaurant.arrivals или classic(), если оно не задано.
+     */
+    static ArrivalProcess fromProperty() {
+        String value = System.getProperty("restaurant.arrivals");
+        if (value == null || value.isBlank()) {
+            return classic();
+        }
+        try {
+            return parse(value);
+        } catch (IllegalArgumentException e) {
+            Log.warn("[КЛИЕНТЫ] restaurant.arrivals: " + e.getMessage() + " — прежний генератор");
+            return classic();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Неблокирующий официант.
+ *
+ * Тот же цикл, что у Waiter, но собранный из CompletableFuture:
+ * ни одного блокирующего вызова, поток-носитель занят только на время перехода.
+ * Пока кухня готовит, официант сажает и обслуживает других клиентов —
+ * до maxTables столов одновременно. Переходы по залу идут строго по очереди
+ * (официант один), ожидание кухни — параллельно.
+ */
+public class AsyncWaiter {
+
+    private final int id;
+    private final BlockingDeque<Waiter.ClientRequest> clientQueue;
+    private final Kitchen kitchen;
+    private final OrderStore orders;
+    private final Executor carrier;
+    private final ScheduledExecutorService timer;
+    private final int maxTables;
+    private final AtomicBoolean working = new AtomicBoolean(true);
+    private final AtomicInteger activeClients = new AtomicInteger(0);
+    private final AtomicBoolean pollScheduled = new AtomicBoolean(false);
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    private Waiter.WaiterListener listener;
+    private AdmissionController admission;
+    private Waiter.Seating seating;
+    private volatile WaiterEvent lastEvent;
+    private volatile CompletableFuture<Void> arrivedSignal;
+    private volatile long busySince;
+    private volatile ScheduledFuture<?> pollTimer;
+    private TravelModel.Walker walker;
+    private CompletableFuture<Void> route = CompletableFuture.completedFuture(null);
+
+    public AsyncWaiter(int id, BlockingDeque<Waiter.ClientRequest> clientQueue, Kitchen kitchen, OrderStore orders,
+                       Executor carrier, ScheduledExecutorService timer, int maxTables) {
+        this.id = id;
+        this.clientQueue = clientQueue;
+        this.kitchen = kitchen;
+        this.orders = orders;
+        this.carrier = carrier;
+        this.timer = timer;
+        this.maxTables = maxTables;
+    }
+
+    public void setListener(Waiter.WaiterListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Контроллер допуска у входа. Без него сажаются все.
+     */
+    public void setAdmission(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Кто выбирает место клиенту, как Waiter.setSeating. Задаётся до start().
+     */
+    public void setSeating(Waiter.Seating seating) {
+        this.seating = seating;
+    }
+
+    /**
+     * Переходы по времени из TravelModel вместо сигнала аниматора. Задаётся до start().
+     */
+    public void setTravel(TravelModel.Walker walker) {
+        this.walker = walker;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Начать смену. Возвращает future, завершающийся после последнего клиента.
+     */
+    public CompletableFuture<Void> start() {
+        Log.debug(() -> "[Официант-" + id + "] Начал смену (async, столов: " + maxTables + ")");
+        requestPoll();
+        return finished;
+    }
+
+    /**
+     * Опросить очередь сейчас. Опрос в ожидании у официанта один:
+     * если он уже стоит в очереди носителя — ничего не делать,
+     * если ждёт таймера — отменить таймер и опросить сразу.
+     */
+    private void requestPoll() {
+        ScheduledFuture<?> pending = pollTimer;
+        if (pending != null && pending.cancel(false)) {
+            // Отменённый таймер отдал нам своё место опроса
+            carrier.execute(this::pollClients);
+            return;
+        }
+        if (pollScheduled.compareAndSet(false, true)) {
+            carrier.execute(this::pollClients);
+        }
+    }
+
+    /**
+     * Забрать из очереди столько клиентов, сколько позволяют свободные столы.
+     * Если очередь пуста — повторить через WAITER_POLL_TIMEOUT_MS без блокировки.
+     */
+    private void pollClients() {
+        pollScheduled.set(false);
+        while (reserveTable()) {
+            Waiter.ClientRequest request = clientQueue.poll();
+            if (request == null) {
+                releaseTable();
+                break;
+            }
+            AdmissionController.Decision decision = decide(request);
+            if (decision == AdmissionController.Decision.DEFER) {
+                // Повторим по таймеру, когда кухня разгрузится
+                releaseTable();
+                break;
+            }
+            if (decision == AdmissionController.Decision.REFUSE) {
+                releaseTable();
+                continue;
+            }
+            serve(request).whenComplete((v, e) -> {
+                if (e != null) {
+                    Log.warn("[Официант-" + id + "] Ошибка: " + e.getMessage());
+                }
+                releaseTable();
+                requestPoll();
+            });
+        }
+
+        if (!working.get() && clientQueue.isEmpty()) {
+            if (activeClients.get() == 0 && finished.complete(null)) {
+                Log.debug(() -> "[Официант-" + id + "] Закончил смену");
+            }
+            return;
+        }
+        if (activeClients.get() == 0) {
+            sendEvent(WaiterEvent.IDLE, 0, false);
+        }
+        if (pollScheduled.compareAndSet(false, true)) {
+            pollTimer = timer.schedule(() -> carrier.execute(this::pollClients),
+                Constants.WAITER_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Занять стол до того, как брать клиента из очереди: CAS, чтобы
+     * параллельные опросы не посадили больше maxTables.
+     */
+    private boolean reserveTable() {
+        while (true) {
+            int active = activeClients.get();
+            if (active >= maxTables) {
+                return false;
+            }
+            if (activeClients.compareAndSet(active, active + 1)) {
+                if (active == 0) {
+                    busySince = System.nanoTime();
+                }
+                return true;
+            }
+        }
+    }
+
+    private void releaseTable() {
+        if (activeClients.decrementAndGet() == 0) {
+            Metrics.waiterBusy(System.nanoTime() - busySince);
+        }
+    }
+
+    private CompletableFuture<Void> serve(Waiter.ClientRequest request) {
+        Log.debug(() -> "[Официант-" + id + "] Принял: " + request);
+
+        int clientId = request.clientId();
+        boolean vip = request.vip();
+        int seat = -1;
+        if (seating != null) {
+            seat = seating.seat(clientId, vip, id);
+        }
+        int clientSeat = seat;
+
+        return walk(WaiterEvent.TO_TABLE, clientId, vip, clientSeat, null)
+            .thenCompose(v -> walk(WaiterEvent.TO_KITCHEN, clientId, vip))
+            .thenCompose(v -> {
+                Order order = orders.create(request, clientSeat, id, System.currentTimeMillis());
+                EventJournal.order(EventJournal.Type.ORDER_CREATED, order, order.getCreatedNanos(), 0);
+                boolean accepted = kitchen.addOrder(order);
+                if (admission != null) {
+                    admission.handedOver();
+                }
+                if (!accepted) {
+                    order.releaseWaiter();
+                    Log.debug(() -> "[Официант-" + id + "] Кухня отклонила заказ клиента " + request.clientId() + " — клиент уходит");
+                    return fail(clientId, vip);
+                }
+                sendEvent(WaiterEvent.WAIT, clientId, vip);
+                return order.toFuture()
+                    .orTimeout(Constants.ORDER_TIMEOUT_SEC, TimeUnit.SECONDS)
+                    .handleAsync((ready, error) -> {
+                        if (error != null) {
+                            // Кухня не станет готовить заказ, который уже не ждут
+                            order.timeOut();
+                            order.releaseWaiter();
+                            Log.debug(() -> "[Официант-" + id + "] Таймаут заказа для клиента " + request.clientId() + " — клиент уходит");
+                            return fail(clientId, vip);
+                        }
+                        return deliver(ready);
+                    }, carrier)
+                    .thenCompose(step -> step);
+            });
+    }
+
+    /**
+     * Спросить контроллер допуска. Отложенный клиент возвращается в начало очереди.
+     */
+    private AdmissionController.Decision decide(Waiter.ClientRequest request) {
+        if (admission == null) {
+            return AdmissionController.Decision.ADMIT;
+        }
+        AdmissionController.Decision decision =
+            admission.admit(request, clientQueue, kitchen.getQueueSize(), kitchen.getCookCount());
+        if (decision == AdmissionController.Decision.REFUSE) {
+            Log.debug(() -> "[Официант-" + id + "] Отказ у входа: " + request);
+        }
+        return decision;
+    }
+
+    private CompletableFuture<Void> deliver(Order ready) {
+        return walk(WaiterEvent.DELIVER, ready.getClientId(), ready.isVip(), ready.getSeat(), ready)
+            .thenCompose(v -> {
+                Metrics.recordDelivered(ready);
+                long waitTime = ready.getWaitTime();
+                Dish dish = ready.getDish();
+                int clientId = ready.getClientId();
+                boolean vip = ready.isVip();
+                ready.releaseWaiter();
+                Log.debug(() -> "[Официант-" + id + "] Доставил: " + dish +
+                    " клиенту " + clientId + " (" + waitTime + " мс)");
+                sendEvent(WaiterEvent.DONE, clientId, vip);
+                return walk(WaiterEvent.RETURN, clientId, vip);
+            });
+    }
+
+    private CompletableFuture<Void> fail(int clientId, boolean vip) {
+        sendEvent(WaiterEvent.FAIL, clientId, vip);
+        return walk(WaiterEvent.RETURN, clientId, vip);
+    }
+
+    /**
+     * Поставить переход в очередь маршрута официанта.
+     * Переход начинается после предыдущего и завершается по прибытии.
+     */
+    private CompletableFuture<Void> walk(WaiterEvent event, int clientId, boolean vip) {
+        return walk(event, clientId, vip, -1, null);
+    }
+
+    /**
+     * Переход к месту seat, возможно с заказом в руках: заказ считается забранным
+     * с кухни, когда официант до него дошёл, а не когда он был готов.
+     */
+    private synchronized CompletableFuture<Void> walk(WaiterEvent event, int clientId, boolean vip, int seat,
+                                                      Order carried) {
+        route = route.thenComposeAsync(v -> {
+            if (carried != null) {
+                carried.markPickedUp();
+                EventJournal.order(EventJournal.Type.PICKED_UP, carried, carried.getPickedUpNanos(), 0);
+            }
+            sendEvent(event, clientId, vip);
+            return arrival(event, seat);
+        }, carrier);
+        return route;
+    }
+
+    private CompletableFuture<Void> arrival(WaiterEvent event, int seat) {
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        arrivedSignal = signal;
+        if (!working.get()) {
+            signal.complete(null);
+            return signal;
+        }
+        if (walker != null) {
+            // Переход по времени: прибытие отмечает таймер, сигнал аниматора не нужен
+            timer.schedule(() -> signal.complete(null), walker.legMs(event, seat), TimeUnit.MILLISECONDS);
+            return signal;
+        }
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (signal.complete(null)) {
+                Log.warn(() -> "[Официант-" + id + "] Таймаут движения");
+            }
+        }, Constants.WAITER_ARRIVAL_TIMEOUT_SEC, TimeUnit.SECONDS);
+        signal.thenRun(() -> timeout.cancel(false));
+        return signal;
+    }
+
+    private void sendEvent(WaiterEvent event, int clientId, boolean vip) {
+        if (event == WaiterEvent.IDLE && lastEvent == WaiterEvent.IDLE) {
+            return;
+        }
+        lastEvent = event;
+        EventJournal.waiter(event, id, clientId, vip, System.nanoTime(), 0);
+        if (listener != null) {
+            listener.onEvent(id, event, clientId, vip);
+        }
+    }
+
+    public void notifyArrived() {
+        CompletableFuture<Void> signal = arrivedSignal;
+        if (signal != null) {
+            signal.complete(null);
+        }
+    }
+
+    public void stop() {
+        working.set(false);
+        notifyArrived();
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.SplittableRandom;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -5,104 +6,275 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Генератор клиентов.
  * 
- * Периодически создаёт новых клиентов и добавляет их в очередь.
+ * Создаёт новых клиентов по процессу прихода (ArrivalProcess) и добавляет их в очередь.
  * VIP клиенты добавляются в начало очереди (приоритет).
+ * Паузы, блюда и время готовки берутся из потоков RandomSource.
+ *
+ * Следующий приход хранится как момент от открытия, а не как задержка:
+ * за один шаг часов приходят все, чей момент уже настал, поэтому частота
+ * не ограничена ни миллисекундой планировщика, ни опозданием потока.
+ * В реальном времени генерацию можно разделить на несколько потоков (setThreads):
+ * у каждого свой поток случайности и доля частоты.
  */
 public class ClientGenerator {
     
-    private static final AtomicInteger CLIENT_ID = new AtomicInteger(0);
     private static final AtomicInteger SERVED_COUNT = new AtomicInteger(0);
-    private static final AtomicInteger VIP_PARTIES = new AtomicInteger(0);
+
+    // Номера потоков случайности дорожек: дальше номеров шардов
+    private static final int LANE_STRIDE = 1 << 16;
+
+    private final AtomicInteger clientCounter = new AtomicInteger(0);
+    private final AtomicInteger vipParties = new AtomicInteger(0);
+    private final AtomicInteger turnedAway = new AtomicInteger(0);
 
     private final BlockingDeque<Waiter.ClientRequest> queue;
-    private final ScheduledExecutorService scheduler;
+    private final SimulationEngine engine;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final int maxClients;
+    private volatile ScheduledExecutorService scheduler;
+    private Runnable arrivalListener;
+    private ArrivalProcess process = ArrivalProcess.fromProperty();
+    private int threads = 1;
+    private RandomSource random;
+    private int randomIndex;
+    private long startMs;
+    private long startNanos;
+
+    // VIP-партия: одна за смену в окне прогресса или доля от всех групп
+    private double vipStartProgress = Constants.VIP_START_PROGRESS;
+    private double vipEndProgress = Constants.VIP_END_PROGRESS;
+    private double vipGuaranteedProgress = Constants.VIP_GUARANTEED_PROGRESS;
+    private double vipChance = Constants.VIP_CHANCE;
+    private double vipShare;
 
     public ClientGenerator(BlockingDeque<Waiter.ClientRequest> queue, int maxClients) {
         this.queue = queue;
         this.maxClients = maxClients;
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Генератор"));
+        this.engine = null;
+        setRandom(RandomSource.create(), 0);
+    }
+
+    /**
+     * Генератор на виртуальных часах: задержки планируются как события движка.
+     */
+    public ClientGenerator(BlockingDeque<Waiter.ClientRequest> queue, int maxClients, SimulationEngine engine) {
+        this.queue = queue;
+        this.maxClients = maxClients;
+        this.engine = engine;
+        setRandom(RandomSource.create(), 0);
+    }
+
+    /**
+     * Источник случайности; index — номер генератора, если их несколько
+     * на одном зерне (шарды). Задаётся до start().
+     */
+    public void setRandom(RandomSource random, int index) {
+        this.random = random;
+        this.randomIndex = index;
+    }
+
+    /**
+     * Процесс прихода. По умолчанию — из свойства restaurant.arrivals,
+     * без него — прежний ArrivalProcess.classic(). Задаётся до start().
+     */
+    public void setArrivalProcess(ArrivalProcess process) {
+        this.process = process;
+    }
+
+    public ArrivalProcess getArrivalProcess() {
+        return process;
+    }
+
+    /**
+     * Генерировать в threads потоках, каждый с процессом scaled(1.0 / threads).
+     * Только в реальном времени: на виртуальных часах генератор один. Задаётся до start().
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Окно единственной VIP-партии по доле пришедших клиентов: в [start, end]
+     * партия приходит с вероятностью chance на группу, с guaranteed — наверняка.
+     * По умолчанию — VIP_*_PROGRESS из Constants. Задаётся до start().
+     */
+    public void setVipWindow(double start, double end, double guaranteed, double chance) {
+        this.vipStartProgress = start;
+        this.vipEndProgress = end;
+        this.vipGuaranteedProgress = guaranteed;
+        this.vipChance = chance;
+    }
+
+    /**
+     * Каждая группа — VIP-партия с вероятностью share (вместо окна одной партии):
+     * для длинных открытых смен. 0 — окно setVipWindow. Задаётся до start().
+     */
+    public void setVipShare(double share) {
+        this.vipShare = Math.max(0, Math.min(1, share));
+    }
+
+    /**
+     * Вызывается после каждого шага прихода (будит свободных официантов в headless-режиме).
+     * С несколькими потоками генерации — из любого из них.
+     */
+    public void setArrivalListener(Runnable arrivalListener) {
+        this.arrivalListener = arrivalListener;
     }
 
     public void start() {
-        if (running.compareAndSet(false, true)) {
-            Constants.log("[КЛИЕНТЫ] Открыто (макс: " + maxClients + ")");
-            scheduleNext();
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        Log.info(() -> "[КЛИЕНТЫ] Открыто (макс: " + maxClients + ", приходы: " + process + ")");
+        if (engine != null) {
+            startMs = engine.now();
+            scheduleNext(new Lane(0, process));
+            return;
+        }
+
+        startNanos = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        scheduler = Executors.newScheduledThreadPool(threads, r -> {
+            String name;
+            if (threads == 1) {
+                name = "Генератор";
+            } else {
+                name = "Генератор-" + threadNumber.incrementAndGet();
+            }
+            return new Thread(r, name);
+        });
+        ArrivalProcess share = process;
+        if (threads > 1) {
+            share = process.scaled(1.0 / threads);
         }
+        for (int i = 0; i < threads; i++) {
+            scheduleNext(new Lane(i, share));
+        }
+    }
+
+    /**
+     * Миллисекунды от открытия: виртуальные или реальные.
+     */
+    private double elapsedMs() {
+        if (engine != null) {
+            return engine.now() - startMs;
+        }
+        return (System.nanoTime() - startNanos) / 1e6;
     }
 
-    private void scheduleNext() {
-        if (!running.get() || CLIENT_ID.get() >= maxClients) {
+    private void scheduleNext(Lane lane) {
+        if (!running.get() || clientCounter.get() >= maxClients) {
             return;
         }
-        
-        int delay = ThreadLocalRandom.current().nextInt(
-            Constants.CLIENT_GEN_MIN_DELAY_MS, 
-            Constants.CLIENT_GEN_MAX_DELAY_MS
-        );
-        scheduler.schedule(this::generateClients, delay, TimeUnit.MILLISECONDS);
+
+        long delay = (long) Math.ceil(Math.max(0, lane.nextArrivalMs - elapsedMs()));
+        if (engine != null) {
+            engine.schedule(delay, () -> arrive(lane));
+        } else {
+            scheduler.schedule(() -> arrive(lane), delay, TimeUnit.MILLISECONDS);
+        }
     }
 
-    private void generateClients() {
-        if (!running.get() || CLIENT_ID.get() >= maxClients) {
+    /**
+     * Все группы дорожки, чей момент уже настал, и планирование следующего шага.
+     */
+    private void arrive(Lane lane) {
+        if (!running.get() || clientCounter.get() >= maxClients) {
             return;
         }
 
-        int current = CLIENT_ID.get();
+        double now = elapsedMs();
+        while (lane.nextArrivalMs <= now && running.get() && clientCounter.get() < maxClients) {
+            generateParty(lane);
+            lane.nextArrivalMs += lane.process.nextGapMs(lane.nextArrivalMs, lane.arrivals);
+        }
+
+        if (arrivalListener != null) {
+            arrivalListener.run();
+        }
+        scheduleNext(lane);
+    }
+
+    private void generateParty(Lane lane) {
+        int current = clientCounter.get();
         int remaining = maxClients - current;
         double progress = (double) current / maxClients;
 
-        if (shouldGenerateVip(progress, remaining)) {
-            generateVipParty(remaining);
+        if (shouldGenerateVip(lane, progress, remaining)) {
+            generateVipParty(lane, remaining);
         } else {
-            generateRegularClients(remaining);
+            generateRegularClients(lane, remaining);
         }
-
-        scheduleNext();
     }
 
-    private boolean shouldGenerateVip(double progress, int remaining) {
-        if (VIP_PARTIES.get() > 0 || remaining < Constants.VIP_BATCH_MIN) {
+    private boolean shouldGenerateVip(Lane lane, double progress, int remaining) {
+        if (remaining < Constants.VIP_BATCH_MIN) {
             return false;
         }
-        if (progress >= Constants.VIP_START_PROGRESS && progress <= Constants.VIP_END_PROGRESS) {
-            return ThreadLocalRandom.current().nextDouble() < Constants.VIP_CHANCE;
+        if (vipShare > 0) {
+            return lane.arrivals.nextDouble() < vipShare;
+        }
+        if (vipParties.get() > 0) {
+            return false;
         }
-        return progress >= Constants.VIP_GUARANTEED_PROGRESS;
+        boolean vip;
+        if (progress >= vipStartProgress && progress <= vipEndProgress) {
+            vip = lane.arrivals.nextDouble() < vipChance;
+        } else {
+            vip = progress >= vipGuaranteedProgress;
+        }
+        // Партия одна, даже если решили сразу несколько потоков
+        return vip && vipParties.compareAndSet(0, 1);
     }
 
-    private void generateVipParty(int remaining) {
-        VIP_PARTIES.incrementAndGet();
+    private void generateVipParty(Lane lane, int remaining) {
+        if (vipShare > 0) {
+            vipParties.incrementAndGet();
+        }
         
-        int batchSize = ThreadLocalRandom.current().nextInt(Constants.VIP_BATCH_MIN, Constants.VIP_BATCH_MAX);
+        int batchSize = lane.arrivals.nextInt(Constants.VIP_BATCH_MIN, Constants.VIP_BATCH_MAX);
         batchSize = Math.min(batchSize, remaining);
         
-        Constants.log("[КЛИЕНТЫ] === VIP ПАРТИЯ (" + batchSize + " чел) ===");
+        int partySize = batchSize;
+        if (vipShare > 0) {
+            Log.debug(() -> "[КЛИЕНТЫ] VIP партия (" + partySize + " чел)");
+        } else {
+            Log.info(() -> "[КЛИЕНТЫ] === VIP ПАРТИЯ (" + partySize + " чел) ===");
+        }
         
-        for (int i = 0; i < batchSize && CLIENT_ID.get() < maxClients; i++) {
-            addClient(true);
+        for (int i = 0; i < batchSize; i++) {
+            if (!addClient(lane, true)) {
+                return;
+            }
         }
     }
 
-    private void generateRegularClients(int remaining) {
-        int batchSize = ThreadLocalRandom.current().nextInt(1, 3);
+    private void generateRegularClients(Lane lane, int remaining) {
+        int batchSize = lane.process.partySize(lane.arrivals);
         batchSize = Math.min(batchSize, remaining);
         
-        for (int i = 0; i < batchSize && CLIENT_ID.get() < maxClients; i++) {
-            addClient(false);
+        for (int i = 0; i < batchSize; i++) {
+            if (!addClient(lane, false)) {
+                return;
+            }
         }
     }
 
-    private void addClient(boolean vip) {
-        int id = CLIENT_ID.incrementAndGet();
+    /**
+     * @return false, если клиентов уже maxClients
+     */
+    private boolean addClient(Lane lane, boolean vip) {
+        int id = nextClientId();
+        if (id < 0) {
+            return false;
+        }
         Dish dish;
         if (vip) {
-            dish = Dish.randomVip();
+            dish = Dish.randomVip(lane.dishes);
         } else {
-            dish = Dish.randomRegular();
+            dish = Dish.randomRegular(lane.dishes);
         }
-        Waiter.ClientRequest request = new Waiter.ClientRequest(id, dish, vip);
+        Waiter.ClientRequest request = new Waiter.ClientRequest(id, dish, vip, dish.getTime(lane.cookTimes));
 
         // VIP в начало очереди, обычные в конец
         boolean added;
@@ -113,9 +285,27 @@ public class ClientGenerator {
         }
 
         if (added) {
-            Constants.log("[КЛИЕНТЫ] " + request);
+            Log.debug(() -> "[КЛИЕНТЫ] " + request);
         } else {
-            Constants.log("[КЛИЕНТЫ] #" + id + " ушёл — очередь полная");
+            turnedAway.incrementAndGet();
+            Log.debug(() -> "[КЛИЕНТЫ] #" + id + " ушёл — очередь полная");
+        }
+        return true;
+    }
+
+    /**
+     * Номер следующего клиента или -1, если клиентов уже maxClients
+     * (несколько потоков генерации не проскочат предел).
+     */
+    private int nextClientId() {
+        while (true) {
+            int current = clientCounter.get();
+            if (current >= maxClients) {
+                return -1;
+            }
+            if (clientCounter.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
         }
     }
 
@@ -125,6 +315,10 @@ public class ClientGenerator {
 
     public void shutdown() {
         stop();
+        if (scheduler == null) {
+            Log.info("[КЛИЕНТЫ] Закрыто");
+            return;
+        }
         scheduler.shutdown();
         
         try {
@@ -136,7 +330,25 @@ public class ClientGenerator {
             Thread.currentThread().interrupt();
         }
         
-        Constants.log("[КЛИЕНТЫ] Закрыто");
+        Log.info("[КЛИЕНТЫ] Закрыто");
+    }
+
+    /**
+     * Сколько клиентов уже пришло (включая ушедших из-за полной очереди).
+     */
+    public int getGenerated() {
+        return clientCounter.get();
+    }
+
+    /**
+     * Сколько клиентов ушло, не попав в очередь.
+     */
+    public int getTurnedAway() {
+        return turnedAway.get();
+    }
+
+    public boolean isFinished() {
+        return !running.get() || clientCounter.get() >= maxClients;
     }
 
     public static void served() {
@@ -144,8 +356,28 @@ public class ClientGenerator {
     }
 
     public static void reset() {
-        CLIENT_ID.set(0);
         SERVED_COUNT.set(0);
-        VIP_PARTIES.set(0);
+    }
+
+    /**
+     * Дорожка генерации: свой процесс, свои потоки случайности и момент
+     * следующего прихода. Шаги одной дорожки идут по очереди.
+     */
+    private final class Lane {
+        final ArrivalProcess process;
+        final SplittableRandom arrivals;
+        final SplittableRandom dishes;
+        final SplittableRandom cookTimes;
+        double nextArrivalMs;
+
+        Lane(int number, ArrivalProcess process) {
+            // Первая дорожка — на потоках генератора, как было до дорожек
+            int index = randomIndex + number * LANE_STRIDE;
+            this.process = process;
+            this.arrivals = random.stream(RandomSource.Stream.ARRIVALS, index);
+            this.dishes = random.stream(RandomSource.Stream.DISHES, index);
+            this.cookTimes = random.stream(RandomSource.Stream.COOK_TIMES, index);
+            this.nextArrivalMs = process.nextGapMs(0, arrivals);
+        }
     }
 }
@@ -1,22 +1,7 @@
-import java.awt.Color;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-
 public final class Constants {
 
     private Constants() {}
 
-    // ==================== ЛОГИРОВАНИЕ ====================
-    
-    private static final Object LOG_LOCK = new Object();
-    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
-    public static void log(String message) {
-        synchronized (LOG_LOCK) {
-            String timestamp = LocalTime.now().format(TIME_FORMAT);
-            System.out.println("[" + timestamp + "] " + message);
-        }
-    }
-
     // ==================== РЕСТОРАН ====================
     
     public static final int KITCHEN_SIZE = 20;
@@ -37,6 +22,8 @@ public final class Constants {
     public static final int KITCHEN_Y = 480;
     public static final int COUNTER_Y = 465;
     public static final double WAITER_SPEED = 5.0;
+    /** Насколько выход с подносом может удлинить путь тарелки против прямого хода от стойки, пикселей. */
+    public static final double TRAY_MAX_DETOUR_PX = 150;
 
     // ==================== СТОЛЫ ====================
     
@@ -55,32 +42,30 @@ public final class Constants {
     public static final int VIP_TABLE_WIDTH = 200;
     public static final int VIP_TABLE_HEIGHT = 90;
 
-    // ==================== ЦВЕТА ====================
-    
-    public static final Color COLOR_BACKGROUND = new Color(173, 216, 230);
-    public static final Color COLOR_TABLE = new Color(139, 90, 43);
-    public static final Color COLOR_TABLE_VIP = new Color(180, 120, 60);
-    public static final Color COLOR_CHAIR = new Color(160, 82, 45);
-    public static final Color COLOR_KITCHEN_BG = new Color(70, 70, 75);
-    public static final Color COLOR_COUNTER = new Color(60, 60, 65);
-    public static final Color COLOR_CONTROL_PANEL = new Color(45, 45, 50);
-    public static final Color COLOR_BTN_START = new Color(76, 175, 80);
-    public static final Color COLOR_BTN_STOP = new Color(244, 67, 54);
-    
-    public static final Color COLOR_CLIENT_READY = new Color(100, 200, 100);
-    public static final Color COLOR_CLIENT_WAITING = new Color(255, 200, 100);
-    public static final Color COLOR_CLIENT_VIP = new Color(120, 170, 255);
-    public static final Color COLOR_SKIN = new Color(255, 220, 185);
-    public static final Color COLOR_HAIR = new Color(80, 60, 40);
-    public static final Color COLOR_VIP_CROWN = new Color(255, 215, 0);
-
     // ==================== ТАЙМАУТЫ ====================
     
     public static final int WAITER_POLL_TIMEOUT_MS = 300;
     public static final int WAITER_ARRIVAL_TIMEOUT_SEC = 10;
     public static final int ORDER_TIMEOUT_SEC = 90;
     public static final long CLIENT_LEAVE_DELAY_MS = 1500;
+    /** Фиксированный шаг движения официантов в окне. */
     public static final int ANIMATION_INTERVAL_MS = 30;
+    /** Сколько пропущенных шагов аниматор догоняет за раз; дальше отстаёт. */
+    public static final int ANIMATION_MAX_CATCH_UP = 5;
+    /** Период отрисовки окна (кадры интерполируются между шагами). */
+    public static final int RENDER_INTERVAL_MS = 16;
+
+    // ==================== ДОПУСК КЛИЕНТОВ ====================
+
+    /** Оценка одного перехода официанта для прогноза допуска (в окне — анимация). */
+    public static final long ADMISSION_WALK_MS = 2000;
+    /** Через сколько официант снова смотрит на отложенного клиента. */
+    public static final long ADMISSION_DEFER_MS = 500;
+
+    // ==================== ASYNC ОФИЦИАНТЫ ====================
+
+    /** Сколько столов async-официант обслуживает одновременно. */
+    public static final int WAITER_MAX_TABLES = 3;
 
     // ==================== ГЕНЕРАЦИЯ КЛИЕНТОВ ====================
     
@@ -94,4 +79,41 @@ public final class Constants {
     public static final int VIP_BATCH_MIN = 2;
     public static final int VIP_BATCH_MAX = 4;
     public static final double VIP_COOK_MULTIPLIER = 1.5;
+
+    // ==================== КУХНЯ ====================
+
+    /** Загрузка очереди кухни: «высокая» и «критическая». */
+    public static final double KITCHEN_HIGH_LOAD = 0.5;
+    public static final double KITCHEN_CRITICAL_LOAD = 0.8;
+
+    /** На сколько раньше срока VIP-заказ встаёт в очередь кухни. */
+    public static final long VIP_PRIORITY_MS = 10_000;
+
+    /** Партия до BATCH_MAX_SIZE заказов одного блюда (в режиме партий). */
+    public static final int BATCH_MAX_SIZE = 4;
+    /** Сколько повар ждёт добора неполной партии. */
+    public static final long BATCH_MAX_DELAY_MS = 300;
+    /** Время партии = время блюда × размер^BATCH_COOK_EXPONENT. */
+    public static final double BATCH_COOK_EXPONENT = 0.4;
+
+    // ==================== АВТОМАСШТАБ ПОВАРОВ ====================
+
+    /** Как часто пересматривается число поваров. */
+    public static final long AUTOSCALE_INTERVAL_MS = 1000;
+    /** Желаемое ожидание заказа в очереди кухни. */
+    public static final long AUTOSCALE_TARGET_WAIT_MS = 3_000;
+    /** Ниже этой загрузки очереди повара постепенно уходят. */
+    public static final double AUTOSCALE_LOW_LOAD = 0.1;
+    /** Сколько проверок подряд нужно, чтобы добавить / убрать повара. */
+    public static final int AUTOSCALE_UP_TICKS = 2;
+    public static final int AUTOSCALE_DOWN_TICKS = 5;
+    /** Как часто свободный повар проверяет, не пора ли ему уйти. */
+    public static final long COOK_IDLE_CHECK_MS = 200;
+
+    // ==================== HEADLESS ====================
+
+    /** Время одного перехода официанта в симуляции без GUI, если не задан TravelModel. */
+    public static final long HEADLESS_WALK_MS = 1500;
+    /** Окно виртуального времени, которое шарды ShardedRestaurant проходят параллельно. */
+    public static final long SHARD_WINDOW_MS = 5000;
 }
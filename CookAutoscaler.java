@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Автомасштаб поваров по нагрузке кухни.
+ *
+ * Раз в AUTOSCALE_INTERVAL_MS кухня спрашивает, сколько поваров нужно.
+ * Оценка ожидания в очереди — глубина очереди × среднее время готовки
+ * (скользящее по последним заказам) / число поваров.
+ *
+ * Гистерезис: добавить повара — только если очередь загружена выше
+ * KITCHEN_HIGH_LOAD или ожидание больше целевого AUTOSCALE_UP_TICKS проверок подряд
+ * (при KITCHEN_CRITICAL_LOAD — сразу); убрать — только после AUTOSCALE_DOWN_TICKS
+ * проверок подряд с почти пустой очередью. После каждого изменения счётчики
+ * обнуляются, поэтому штат не «дребезжит» на границе порогов.
+ */
+public class CookAutoscaler {
+
+    private static final double COOK_TIME_SMOOTHING = 0.1;
+
+    private final int minCooks;
+    private final int maxCooks;
+    private final int queueCapacity;
+
+    // Биты double: время готовки учитывают все повара сразу, обновление — CAS
+    private final AtomicLong avgCookBits = new AtomicLong();
+    private int highTicks;
+    private int lowTicks;
+
+    public CookAutoscaler(int minCooks, int maxCooks, int queueCapacity) {
+        this.minCooks = Math.max(1, minCooks);
+        this.maxCooks = Math.max(this.minCooks, maxCooks);
+        this.queueCapacity = queueCapacity;
+        this.avgCookBits.set(Double.doubleToLongBits(Dish.SOUP.getMeanTime()));
+    }
+
+    /**
+     * Учесть время готовки одного заказа (мс модели, без масштаба времени).
+     */
+    public void recordCookTime(double cookMs) {
+        while (true) {
+            long bits = avgCookBits.get();
+            double avg = Double.longBitsToDouble(bits);
+            double updated = avg + COOK_TIME_SMOOTHING * (cookMs - avg);
+            if (avgCookBits.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Сколько поваров должно работать. Вызывается с одного потока (таймер кухни).
+     */
+    public int target(int active, int queueDepth) {
+        double load = (double) queueDepth / queueCapacity;
+        double expectedWait = queueDepth * Double.longBitsToDouble(avgCookBits.get()) / Math.max(1, active);
+
+        if (load > Constants.KITCHEN_CRITICAL_LOAD && active < maxCooks) {
+            return change(active + 1);
+        }
+        if (load > Constants.KITCHEN_HIGH_LOAD || expectedWait > Constants.AUTOSCALE_TARGET_WAIT_MS) {
+            lowTicks = 0;
+            highTicks++;
+            if (highTicks >= Constants.AUTOSCALE_UP_TICKS && active < maxCooks) {
+                return change(active + 1);
+            }
+            return clamp(active);
+        }
+        highTicks = 0;
+        if (load < Constants.AUTOSCALE_LOW_LOAD) {
+            lowTicks++;
+            if (lowTicks >= Constants.AUTOSCALE_DOWN_TICKS && active > minCooks) {
+                return change(active - 1);
+            }
+        } else {
+            lowTicks = 0;
+        }
+        return clamp(active);
+    }
+
+    public int getMinCooks() {
+        return minCooks;
+    }
+
+    public int getMaxCooks() {
+        return maxCooks;
+    }
+
+    private int change(int cooks) {
+        highTicks = 0;
+        lowTicks = 0;
+        return clamp(cooks);
+    }
+
+    private int clamp(int cooks) {
+        return Math.max(minCooks, Math.min(maxCooks, cooks));
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Стойка выдачи: готовые заказы ждут любого свободного официанта.
+ *
+ * С подносом на несколько тарелок официант не ждёт свой заказ у кухни:
+ * отдав заказ, он свободен, а готовое блюдо ложится сюда. Первый освободившийся
+ * официант забирает до trayCapacity заказов и разносит их за один выход
+ * в порядке RoutePlanner.planTrip. Заказ, не дождавшийся кухни, тоже ложится сюда —
+ * взявший его официант сообщает клиенту об отказе.
+ *
+ * Срок здесь отдельно не отсчитывается: не успевающий заказ снимает кухня
+ * (KitchenPolicy.canCook), и снятый заказ ложится на стойку так же, как готовый.
+ */
+public final class DeliveryPass implements OrderStore.Listener {
+
+    private final BlockingDeque<Order> ready = new LinkedBlockingDeque<>();
+    private final AtomicInteger cooking = new AtomicInteger(0);
+    private final HallLayout layout;
+    private final int trayCapacity;
+
+    public DeliveryPass(HallLayout layout, int trayCapacity) {
+        this.layout = layout;
+        this.trayCapacity = Math.max(1, trayCapacity);
+    }
+
+    /**
+     * Заказ отдан на кухню: когда он завершится (готов или снят по таймауту),
+     * то сам ляжет на стойку.
+     */
+    public void expect(Order order) {
+        cooking.incrementAndGet();
+        order.onComplete(this);
+    }
+
+    @Override
+    public void orderCompleted(Order order) {
+        ready.add(order);
+        cooking.decrementAndGet();
+    }
+
+    /**
+     * Забрать на поднос до trayCapacity самых старых заказов.
+     *
+     * @return сколько заказов положено в tray (0 — стойка пуста)
+     */
+    public int take(Order[] tray) {
+        int taken = 0;
+        int limit = Math.min(trayCapacity, tray.length);
+        Order order;
+        while (taken < limit && (order = ready.poll()) != null) {
+            tray[taken++] = order;
+        }
+        return taken;
+    }
+
+    /**
+     * Вернуть на стойку заказы tray[from..to), не вошедшие в выход, —
+     * в начало и в том же порядке: их заберут первыми.
+     */
+    public void putBack(Order[] tray, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            ready.addFirst(tray[i]);
+        }
+    }
+
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    /**
+     * Есть что разносить сейчас или позже: заказ на стойке или ещё на кухне.
+     */
+    public boolean hasWork() {
+        return cooking.get() > 0 || !ready.isEmpty();
+    }
+
+    public int size() {
+        return ready.size();
+    }
+
+    public HallLayout getLayout() {
+        return layout;
+    }
+
+    public int getTrayCapacity() {
+        return trayCapacity;
+    }
+}
@@ -1,4 +1,4 @@
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 /**
  * Блюда ресторана с временем приготовления.
@@ -34,16 +34,26 @@ public enum Dish {
         return name;
     }
 
-    public int getTime() {
-        return ThreadLocalRandom.current().nextInt(minTime, maxTime + 1);
+    /**
+     * Случайное время приготовления из диапазона блюда.
+     */
+    public int getTime(SplittableRandom random) {
+        return random.nextInt(minTime, maxTime + 1);
     }
 
-    public static Dish randomRegular() {
-        return REGULAR[ThreadLocalRandom.current().nextInt(REGULAR.length)];
+    /**
+     * Среднее время приготовления (для прогнозов).
+     */
+    public double getMeanTime() {
+        return (minTime + maxTime) / 2.0;
     }
 
-    public static Dish randomVip() {
-        return VIP_ONLY[ThreadLocalRandom.current().nextInt(VIP_ONLY.length)];
+    public static Dish randomRegular(SplittableRandom random) {
+        return REGULAR[random.nextInt(REGULAR.length)];
+    }
+
+    public static Dish randomVip(SplittableRandom random) {
+        return VIP_ONLY[random.nextInt(VIP_ONLY.length)];
     }
 
     @Override
@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Бинарный журнал событий заказов и официантов.
+ *
+ * Записи фиксированной ширины (RECORD_SIZE байт) пишутся прямо в файл,
+ * отображённый в память сегментами по SEGMENT_RECORDS записей. Место под запись
+ * выдаётся одним атомарным инкрементом номера, дальше — абсолютные put без
+ * блокировок и аллокаций; новый сегмент отображается заранее, на середине текущего.
+ * Выключенный журнал стоит одного чтения volatile-поля.
+ *
+ * Время — в наносекундах: System.nanoTime в ресторане с потоками,
+ * виртуальное время в симуляции без GUI. Разбор — JournalReader.
+ *
+ * Формат: заголовок HEADER_SIZE байт (магия, версия, размер записи, число записей,
+ * время открытия), затем записи little-endian:
+ * время (8), клиент (4), заказ (4), официант — младшие 2 байта, источник (2), тип (1), блюдо (1),
+ * флаги (1), официант — старший байт (1). Номер официанта — до MAX_WAITER_ID.
+ *
+ * Закрытие ждёт писателей, уже взявших место под запись, и только потом
+ * обрезает файл и закрывает канал; опоздавшие после этого ничего не пишут.
+ */
+public final class EventJournal {
+
+    private EventJournal() {}
+
+    /**
+     * Тип записи. Код в файле — ordinal() + 1 (0 — пустая запись).
+     */
+    public enum Type {
+        // Заказ
+        ORDER_CREATED,
+        COOK_STARTED,
+        ORDER_READY,
+        ORDER_EXPIRED,
+        PICKED_UP,
+        // Официант (WaiterEvent)
+        WAITER_IDLE,
+        WAITER_TO_TABLE,
+        WAITER_TO_KITCHEN,
+        WAITER_WAIT,
+        WAITER_DELIVER,
+        WAITER_DONE,
+        WAITER_FAIL,
+        WAITER_RETURN;
+
+        private static final Type[] VALUES = values();
+
+        public static Type of(WaiterEvent event) {
+            return VALUES[WAITER_IDLE.ordinal() + event.ordinal()];
+        }
+
+        /**
+         * Тип по коду из файла или null для пустой записи.
+         */
+        public static Type ofCode(int code) {
+            if (code <= 0 || code > VALUES.length) {
+                return null;
+            }
+            return VALUES[code - 1];
+        }
+    }
+
+    static final int MAGIC = 0x4C4E4A52; // "RJNL"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 24;
+    static final int SEGMENT_SHIFT = 21;
+    static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+    private static final int MAX_SEGMENTS = 4096;
+
+    static final int FLAG_VIP = 1;
+    static final int MAX_WAITER_ID = 0xFF_FFFF;
+
+    // Смещения полей в записи
+    static final int AT_NANOS = 0;
+    static final int AT_CLIENT = 8;
+    static final int AT_ORDER = 12;
+    static final int AT_WAITER = 16;
+    static final int AT_SOURCE = 18;
+    static final int AT_TYPE = 20;
+    static final int AT_DISH = 21;
+    static final int AT_FLAGS = 22;
+    static final int AT_WAITER_HIGH = 23;
+
+    // Смещения полей заголовка
+    static final int AT_MAGIC = 0;
+    static final int AT_VERSION = 4;
+    static final int AT_RECORD_SIZE = 6;
+    static final int AT_COUNT = 8;
+    static final int AT_OPENED_MILLIS = 16;
+    static final int AT_OPENED_NANOS = 24;
+
+    private static volatile Writer writer;
+
+    /**
+     * Открыть журнал (файл перезаписывается). Пишут все рестораны процесса.
+     */
+    public static synchronized void open(Path path) throws IOException {
+        if (writer != null) {
+            close();
+        }
+        writer = new Writer(path);
+        Log.info(() -> "[ЖУРНАЛ] Пишется в " + path);
+    }
+
+    /**
+     * Открыть журнал по свойству restaurant.journal, если оно задано.
+     */
+    public static void openFromProperty() {
+        String path = System.getProperty("restaurant.journal");
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        try {
+            open(Path.of(path));
+        } catch (IOException e) {
+            Log.warn("[ЖУРНАЛ] Не удалось открыть " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Закрыть журнал: записать число записей, сбросить на диск, обрезать файл.
+     */
+    public static synchronized void close() {
+        Writer current = writer;
+        if (current == null) {
+            return;
+        }
+        writer = null;
+        try {
+            long count = current.close();
+            Log.info(() -> "[ЖУРНАЛ] Закрыт, записей: " + count);
+        } catch (IOException e) {
+            Log.warn("[ЖУРНАЛ] Ошибка при закрытии: " + e.getMessage());
+        }
+    }
+
+    public static boolean isOpen() {
+        return writer != null;
+    }
+
+    /**
+     * Переход заказа.
+     */
+    public static void order(Type type, Order order, long nanos, int source) {
+        Writer current = writer;
+        if (current != null) {
+            current.write(type, nanos, order.getClientId(), order.getId(), order.getWaiterId(), source,
+                order.getDish(), order.isVip());
+        }
+    }
+
+    /**
+     * Переход официанта (заказа у перехода может не быть — orderId 0).
+     */
+    public static void waiter(WaiterEvent event, int waiterId, int clientId, boolean vip, long nanos, int source) {
+        Writer current = writer;
+        if (current != null) {
+            current.write(Type.of(event), nanos, clientId, 0, waiterId, source, null, vip);
+        }
+    }
+
+    private static final class Writer {
+        private final FileChannel channel;
+        private final AtomicReferenceArray<MappedByteBuffer> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+        private final AtomicLong next = new AtomicLong(0);
+        private final AtomicLong dropped = new AtomicLong(0);
+        private final AtomicInteger writers = new AtomicInteger(0);
+        private final MappedByteBuffer header;
+        private volatile boolean closing;
+
+        Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(AT_MAGIC, MAGIC);
+            header.putShort(AT_VERSION, (short) VERSION);
+            header.putShort(AT_RECORD_SIZE, (short) RECORD_SIZE);
+            header.putLong(AT_COUNT, -1);
+            header.putLong(AT_OPENED_MILLIS, System.currentTimeMillis());
+            header.putLong(AT_OPENED_NANOS, System.nanoTime());
+            segment(0);
+        }
+
+        void write(Type type, long nanos, int clientId, int orderId, int waiterId, int source,
+                   Dish dish, boolean vip) {
+            if (waiterId < 0 || waiterId > MAX_WAITER_ID) {
+                throw new IllegalArgumentException("Номер официанта не помещается в журнал: " + waiterId);
+            }
+            // Писатель сначала встаёт в счётчик, потом смотрит на closing, а close —
+            // наоборот: либо close дождётся этой записи, либо запись увидит closing
+            writers.incrementAndGet();
+            try {
+                if (closing) {
+                    return;
+                }
+                long index = next.getAndIncrement();
+                int segmentIndex = (int) (index >>> SEGMENT_SHIFT);
+                if (segmentIndex >= MAX_SEGMENTS) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                int inSegment = (int) (index & (SEGMENT_RECORDS - 1));
+                MappedByteBuffer buffer = segments.get(segmentIndex);
+                if (buffer == null) {
+                    buffer = segment(segmentIndex);
+                }
+                if (inSegment == SEGMENT_RECORDS / 2 && segmentIndex + 1 < MAX_SEGMENTS) {
+                    // Следующий сегмент — заранее, чтобы писатели на границе не ждали
+                    segment(segmentIndex + 1);
+                }
+
+                int at = inSegment * RECORD_SIZE;
+                int dishCode = 0;
+                if (dish != null) {
+                    dishCode = dish.ordinal() + 1;
+                }
+                int flags = 0;
+                if (vip) {
+                    flags |= FLAG_VIP;
+                }
+                buffer.putLong(at + AT_NANOS, nanos);
+                buffer.putInt(at + AT_CLIENT, clientId);
+                buffer.putInt(at + AT_ORDER, orderId);
+                buffer.putShort(at + AT_WAITER, (short) waiterId);
+                buffer.put(at + AT_WAITER_HIGH, (byte) (waiterId >>> 16));
+                buffer.putShort(at + AT_SOURCE, (short) source);
+                buffer.put(at + AT_DISH, (byte) dishCode);
+                buffer.put(at + AT_FLAGS, (byte) flags);
+                buffer.put(at + AT_TYPE, (byte) (type.ordinal() + 1));
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        private MappedByteBuffer segment(int index) {
+            MappedByteBuffer buffer = segments.get(index);
+            if (buffer != null) {
+                return buffer;
+            }
+            synchronized (this) {
+                buffer = segments.get(index);
+                if (buffer == null) {
+                    try {
+                        buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                            HEADER_SIZE + index * SEGMENT_BYTES, SEGMENT_BYTES);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Не удалось отобразить сегмент журнала " + index, e);
+                    }
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+                    segments.set(index, buffer);
+                }
+                return buffer;
+            }
+        }
+
+        long close() throws IOException {
+            closing = true;
+            while (writers.get() > 0) {
+                Thread.yield();
+            }
+            long count = Math.min(next.get(), (long) MAX_SEGMENTS * SEGMENT_RECORDS);
+            for (int i = 0; i < MAX_SEGMENTS; i++) {
+                MappedByteBuffer buffer = segments.get(i);
+                if (buffer == null) {
+                    break;
+                }
+                buffer.force();
+            }
+            header.putLong(AT_COUNT, count);
+            header.force();
+            channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+            channel.close();
+            if (dropped.get() > 0) {
+                Log.warn("[ЖУРНАЛ] Не поместилось записей: " + dropped.get());
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Режим выполнения официантов и поваров.
+ *
+ * PLATFORM — обычные потоки ОС, VIRTUAL — виртуальные потоки (Java 21+).
+ * Виртуальные потоки дёшевы, пока поток блокирован в poll/join/sleep,
+ * поэтому позволяют держать десятки тысяч официантов и поваров в одной JVM.
+ * На JVM без виртуальных потоков VIRTUAL откатывается на PLATFORM.
+ * ASYNC — официанты без своих потоков (AsyncWaiter) на небольшом пуле-носителе,
+ * повара — на обычных потоках.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL,
+    ASYNC;
+
+    // Thread.ofVirtual().name(name).unstarted(task) через MethodHandle,
+    // чтобы проект собирался и на Java 17
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle BUILDER_NAME;
+    private static final MethodHandle BUILDER_UNSTARTED;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle unstarted = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+            name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+            unstarted = lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_UNSTARTED = unstarted;
+    }
+
+    /**
+     * Поддерживает ли JVM виртуальные потоки.
+     */
+    public static boolean virtualThreadsSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Итоговый режим с учётом возможностей JVM.
+     */
+    public ExecutionMode effective() {
+        if (this == VIRTUAL && !virtualThreadsSupported()) {
+            return PLATFORM;
+        }
+        return this;
+    }
+
+    /**
+     * Создать (не запуская) поток с заданным именем.
+     */
+    public Thread newThread(String name, Runnable task) {
+        if (effective() == VIRTUAL) {
+            try {
+                Object builder = OF_VIRTUAL.invoke();
+                builder = BUILDER_NAME.invoke(builder, name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Не удалось создать виртуальный поток " + name, e);
+            }
+        }
+        return new Thread(task, name);
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Планировка зала: столы, места, стойка раздачи и места официантов.
+ *
+ * Общая для окна и для запуска без GUI: окно строит по ней TableVisual,
+ * TravelModel считает по ней длину переходов. Координаты — пиксели окна.
+ */
+public final class HallLayout {
+
+    /**
+     * Стол зала.
+     */
+    public record Table(int id, int x, int y, int width, int height, boolean vip, int capacity) {}
+
+    // Официант подходит к месту сверху, к стойке — чуть выше её края
+    private static final int SEAT_APPROACH_DY = 25;
+    private static final int COUNTER_APPROACH_DY = 15;
+    private static final int HOME_DY = 35;
+    private static final int HOME_START_X = 180;
+    private static final int HOME_SPACING_X = 90;
+    private static final int HOME_SLOTS = 7;
+
+    private final List<Table> tables;
+
+    // Места: координаты клиента и тип стола, сквозной индекс как в TableManager
+    private final int[] seatX;
+    private final int[] seatY;
+    private final int[] regularSeats;
+    private final int[] vipSeats;
+
+    public HallLayout(List<Table> tables) {
+        this.tables = Collections.unmodifiableList(new ArrayList<>(tables));
+
+        int total = 0;
+        int vipTotal = 0;
+        for (Table table : tables) {
+            total += table.capacity();
+            if (table.vip()) {
+                vipTotal += table.capacity();
+            }
+        }
+        this.seatX = new int[total];
+        this.seatY = new int[total];
+        this.regularSeats = new int[total - vipTotal];
+        this.vipSeats = new int[vipTotal];
+
+        int idx = 0;
+        int regular = 0;
+        int vip = 0;
+        for (Table table : tables) {
+            for (int i = 0; i < table.capacity(); i++, idx++) {
+                seatX[idx] = seatX(table, i);
+                seatY[idx] = seatY(table, i);
+                if (table.vip()) {
+                    vipSeats[vip++] = idx;
+                } else {
+                    regularSeats[regular++] = idx;
+                }
+            }
+        }
+    }
+
+    /**
+     * Зал окна: сетка обычных столов с VIP-столом в центре.
+     */
+    public static HallLayout standard() {
+        List<Table> tables = new ArrayList<>();
+        int tableId = 1;
+        for (int row = 0; row < Constants.TABLE_ROWS; row++) {
+            for (int col = 0; col < Constants.TABLE_COLUMNS; col++) {
+                // Пропускаем VIP-зону в центре
+                boolean isVipArea = (row == 1 || row == 2) && (col == 2 || col == 3);
+                if (isVipArea) {
+                    continue;
+                }
+                int x = Constants.TABLE_START_X + col * Constants.TABLE_SPACING_X;
+                int y = Constants.TABLE_START_Y + row * Constants.TABLE_SPACING_Y;
+                tables.add(new Table(tableId++, x, y, Constants.REGULAR_TABLE_WIDTH,
+                    Constants.REGULAR_TABLE_HEIGHT, false, Constants.REGULAR_TABLE_CAPACITY));
+            }
+        }
+
+        int vipX = Constants.TABLE_START_X + 2 * Constants.TABLE_SPACING_X - 30;
+        int vipY = Constants.TABLE_START_Y + Constants.TABLE_SPACING_Y + 15;
+        tables.add(new Table(tableId, vipX, vipY, Constants.VIP_TABLE_WIDTH,
+            Constants.VIP_TABLE_HEIGHT, true, Constants.VIP_TABLE_CAPACITY));
+        return new HallLayout(tables);
+    }
+
+    private static int seatX(Table t, int seatIndex) {
+        if (t.vip()) {
+            int[] offsets = {-70, 0, 70};
+            return t.x() + t.width() / 2 + offsets[seatIndex % 3];
+        }
+        if (seatIndex == 0) {
+            return t.x() - 18;
+        }
+        return t.x() + t.width() + 18;
+    }
+
+    private static int seatY(Table t, int seatIndex) {
+        if (t.vip()) {
+            if (seatIndex < 3) {
+                return t.y() - 8;
+            }
+            return t.y() + t.height() + 20;
+        }
+        return t.y() + t.height() / 2;
+    }
+
+    public List<Table> getTables() {
+        return tables;
+    }
+
+    public int getSeatCount() {
+        return seatX.length;
+    }
+
+    public int getSeatX(int seat) {
+        return seatX[seat];
+    }
+
+    public int getSeatY(int seat) {
+        return seatY[seat];
+    }
+
+    /**
+     * Куда встаёт официант, обслуживая место.
+     */
+    public int getSeatApproachY(int seat) {
+        return seatY[seat] - SEAT_APPROACH_DY;
+    }
+
+    /**
+     * Место, куда без окна «садится» клиент: по номеру клиента, VIP — за VIP-стол.
+     * Одинаково в любом прогоне, без общего состояния.
+     */
+    public int seatFor(int clientId, boolean vip) {
+        int[] pool = regularSeats;
+        if (vip && vipSeats.length > 0) {
+            pool = vipSeats;
+        }
+        if (pool.length == 0) {
+            pool = vipSeats;
+        }
+        int mixed = clientId * 0x9E3779B9;
+        return pool[Math.floorMod(mixed ^ (mixed >>> 16), pool.length)];
+    }
+
+    // ==================== ОФИЦИАНТЫ ====================
+
+    /**
+     * Место официанта у стойки; вдоль стойки HOME_SLOTS мест, дальше — по кругу.
+     */
+    public int getHomeX(int waiterId) {
+        return HOME_START_X + Math.floorMod(waiterId - 1, HOME_SLOTS) * HOME_SPACING_X;
+    }
+
+    public int getHomeY() {
+        return Constants.COUNTER_Y - HOME_DY;
+    }
+
+    /**
+     * Где официант ждёт у стойки: напротив своего места.
+     */
+    public int getCounterY() {
+        return Constants.COUNTER_Y - COUNTER_APPROACH_DY;
+    }
+}
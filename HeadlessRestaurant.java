@@ -0,0 +1,808 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ресторан без GUI на виртуальных часах.
+ *
+ * Повторяет цикл Restaurant/Kitchen/Waiter, но вместо потоков и sleep
+ * каждый шаг — событие SimulationEngine. Смена на миллион клиентов
+ * проходит за секунды реального времени.
+ *
+ * Может работать шардом ShardedRestaurant: клиентов тогда приводит
+ * общий балансировщик (arrive), а часы двигаются окнами (advanceTo).
+ *
+ * Заказы живут в OrderStore и о готовности сообщают официанту-слушателю,
+ * массивы партий переиспользуются — сам заказ за смену не создаёт объектов.
+ *
+ * Решения общие с рестораном на потоках: очередь кухни и её политика
+ * (KitchenQueue, KitchenPolicy — приоритет, срок, снятие просроченного, добор партии),
+ * допуск у входа (AdmissionController.admit), автомасштаб (CookAutoscaler),
+ * маршрут подноса (RoutePlanner.planTrip), переходы (TravelModel). Здесь — только
+ * то, как ждать: события вместо потоков. Намеренно упрощено:
+ * - официант ведёт одного клиента за раз, как Waiter (столов внахлёст, как у AsyncWaiter, нет);
+ *   место — layout.seatFor, как в Restaurant по умолчанию, а не ближайшее к официанту, как в окне;
+ * - без TravelModel каждый переход длится HEADLESS_WALK_MS;
+ * - готовка длится ровно время модели; повар уходит по автомасштабу сразу, если свободен,
+ *   иначе после партии, — без опроса раз в COOK_IDLE_CHECK_MS;
+ * - неполную партию добирает не больше одного повара за раз, и он начинает раньше срока,
+ *   только когда другая работа ждёт, а свободных поваров нет;
+ * - с подносом заказ, не дождавшийся кухни, не ложится на стойку: отказ отмечается сразу;
+ * - статистика — сквозная задержка в виртуальном времени (Result), без гистограмм этапов Metrics.
+ */
+public class HeadlessRestaurant {
+
+    private final int cookCount;
+    private final int waiterCount;
+    private final int kitchenQueueSize;
+    private final int clientQueueSize;
+    private final int maxClients;
+
+    private SimulationEngine engine;
+    private BlockingDeque<Waiter.ClientRequest> clientQueue;
+    private ClientGenerator clientGenerator;
+    private AdmissionController admission;
+    private RandomSource random = RandomSource.create();
+    private double walkScale = TravelModel.scaleFromProperty();
+    private HallLayout layout;
+    private TravelModel travel;
+    private int trayCapacity = 1;
+    private ArrivalProcess arrivals = ArrivalProcess.fromProperty();
+
+    // Режим шарда: клиенты приходят через arrive()
+    private boolean arrivalsOpen;
+    private int arrived;
+    private int turnedAway;
+    private long shardNanos;
+    private int journalSource;
+
+    // Кухня
+    private OrderStore orders;
+    private KitchenQueue orderQueue;
+    private int freeCooks;
+    private KitchenPolicy kitchenPolicy;
+    private int maxBatch = 1;
+    private long maxBatchDelayMs;
+    // Партия, которую повар добирает, пока нет другой работы
+    private Order[] openBatch;
+    private int openBatchSize;
+    private int openBatchTicket;
+    private ArrayDeque<Order[]> spareBatches;
+    // Автомасштаб: штат, ожидающие ухода, учёт повар-времени
+    private int minCooks;
+    private int maxCooks;
+    private CookAutoscaler autoscaler;
+    private int staffedCooks;
+    private int retiringCooks;
+    private long staffChangedAt;
+    private long cookMs;
+
+    // Официанты; со стойкой выдачи — готовые заказы ждут любого свободного
+    private ArrayDeque<SimWaiter> idleWaiters;
+    private SimWaiter[] allWaiters;
+    private ArrayDeque<Order> pass;
+
+    // Статистика
+    private int served;
+    private int rejected;
+    private int timedOut;
+    private long totalLatency;
+    private long maxLatency;
+    private long lastOutcomeMs;
+    private LatencyHistogram latencies;
+
+    public HeadlessRestaurant(int cooks, int waiters, int kitchenQueueSize, int clientQueueSize, int maxClients) {
+        this.cookCount = cooks;
+        this.waiterCount = waiters;
+        this.kitchenQueueSize = kitchenQueueSize;
+        this.clientQueueSize = clientQueueSize;
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Готовка партиями, как Kitchen.setBatching. Задаётся до run().
+     */
+    public void setBatching(int maxBatch, long maxDelayMs) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxBatchDelayMs = Math.max(0, maxDelayMs);
+    }
+
+    /**
+     * Источник случайности: с одним зерном смены повторяются. Задаётся до run().
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    public RandomSource getRandom() {
+        return random;
+    }
+
+    /**
+     * Номер ресторана в EventJournal (шарды пишут в один журнал). Задаётся до run().
+     */
+    public void setJournalSource(int journalSource) {
+        this.journalSource = journalSource;
+    }
+
+    /**
+     * Длина переходов официантов по планировке зала (TravelModel) с множителем scale.
+     * 0 — каждый переход HEADLESS_WALK_MS, как раньше. По умолчанию — из
+     * свойства restaurant.walkScale. Задаётся до run().
+     */
+    public void setWalkScale(double scale) {
+        this.walkScale = scale;
+    }
+
+    /**
+     * Поднос на trayCapacity тарелок, как Restaurant.setTrayCapacity:
+     * официант не ждёт свой заказ, а разносит готовые со стойки по нескольку
+     * за выход. Выигрыш виден с TravelModel (setWalkScale). Задаётся до run().
+     */
+    public void setTrayCapacity(int trayCapacity) {
+        this.trayCapacity = Math.max(1, trayCapacity);
+    }
+
+    /**
+     * Процесс прихода клиентов; по умолчанию — из свойства restaurant.arrivals.
+     * Задаётся до run().
+     */
+    public void setArrivals(ArrivalProcess arrivals) {
+        this.arrivals = arrivals;
+    }
+
+    /**
+     * Автомасштаб кухни, как Kitchen.setAutoscale. Задаётся до run().
+     */
+    public void setAutoscale(int minCooks, int maxCooks) {
+        this.minCooks = minCooks;
+        this.maxCooks = maxCooks;
+    }
+
+    /**
+     * Прогнать смену до последнего клиента.
+     */
+    public Result run() {
+        return run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Прогнать смену длительностью durationMs виртуального времени.
+     * Как и Restaurant.close, после закрытия официанты дообслуживают очередь.
+     */
+    public Result run(long durationMs) {
+        long startedAt = System.currentTimeMillis();
+        open();
+        clientGenerator = new ClientGenerator(clientQueue, maxClients, engine);
+        clientGenerator.setRandom(random, 0);
+        clientGenerator.setArrivalProcess(arrivals);
+        clientGenerator.setArrivalListener(this::wakeWaiters);
+        clientGenerator.start();
+
+        engine.runUntil(durationMs);
+        clientGenerator.stop();
+        engine.run();
+        setStaff(staffedCooks);
+        return result(clientGenerator.getGenerated(), clientGenerator.getTurnedAway(),
+            System.currentTimeMillis() - startedAt);
+    }
+
+    // ==================== ШАРД ====================
+
+    /**
+     * Открыть смену шарда: без своего генератора, клиентов приводит arrive().
+     */
+    public void openShard() {
+        open();
+        clientGenerator = null;
+        arrivalsOpen = true;
+        arrived = 0;
+        turnedAway = 0;
+        shardNanos = 0;
+    }
+
+    /**
+     * Клиент придёт в момент atMs (не раньше текущего времени шарда).
+     */
+    public void arrive(long atMs, Waiter.ClientRequest request) {
+        engine.schedule(atMs - engine.now(), () -> {
+            arrived++;
+            // Как у ClientGenerator: VIP в начало очереди
+            boolean added;
+            if (request.vip()) {
+                added = clientQueue.offerFirst(request);
+            } else {
+                added = clientQueue.offerLast(request);
+            }
+            if (added) {
+                wakeWaiters();
+            } else {
+                turnedAway++;
+            }
+        });
+    }
+
+    /**
+     * Прогнать события шарда до момента timeMs.
+     */
+    public void advanceTo(long timeMs) {
+        long started = System.nanoTime();
+        engine.runUntil(timeMs);
+        shardNanos += System.nanoTime() - started;
+    }
+
+    /**
+     * Клиентов больше не будет: дообслужить всех и подвести итог.
+     * wallTimeMs в итоге — время, потраченное на этот шард.
+     */
+    public Result finishShard() {
+        arrivalsOpen = false;
+        advanceTo(Long.MAX_VALUE);
+        setStaff(staffedCooks);
+        return result(arrived, turnedAway, TimeUnit.NANOSECONDS.toMillis(shardNanos));
+    }
+
+    /**
+     * Сколько клиентов ждёт у входа шарда.
+     */
+    public int getClientQueueDepth() {
+        return clientQueue.size();
+    }
+
+    /**
+     * Гистограмма сквозной задержки (наносекунды виртуального времени).
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    private Result result(int clients, int turnedAwayClients, long wallTimeMs) {
+        return new Result(
+            clients, served, rejected, timedOut, kitchenPolicy.getExpired(), turnedAwayClients, admission.getRefused(),
+            averageLatency(), latencies.valueAtPercentile(99) / 1_000_000, maxLatency,
+            cookMs / 60_000.0, walked(), engine.now(), lastOutcomeMs, engine.getProcessedEvents(), wallTimeMs
+        );
+    }
+
+    private boolean arrivalsFinished() {
+        if (clientGenerator != null) {
+            return clientGenerator.isFinished();
+        }
+        return !arrivalsOpen;
+    }
+
+    private void open() {
+        engine = new SimulationEngine();
+        clientQueue = new LinkedBlockingDeque<>(clientQueueSize);
+        orders = new OrderStore();
+        orderQueue = new KitchenQueue(kitchenQueueSize);
+        freeCooks = cookCount;
+        kitchenPolicy = new KitchenPolicy(engine::now, this::journalNanos, journalSource);
+        openBatch = null;
+        spareBatches = new ArrayDeque<>();
+        staffedCooks = cookCount;
+        retiringCooks = 0;
+        staffChangedAt = 0;
+        cookMs = 0;
+        autoscaler = null;
+        if (maxCooks > 0) {
+            autoscaler = new CookAutoscaler(minCooks, maxCooks, kitchenQueueSize);
+            engine.schedule(Constants.AUTOSCALE_INTERVAL_MS, this::rescale);
+        }
+        idleWaiters = new ArrayDeque<>(waiterCount);
+        layout = HallLayout.standard();
+        travel = null;
+        long walkEstimate = Constants.HEADLESS_WALK_MS;
+        if (walkScale > 0) {
+            travel = new TravelModel(layout, walkScale);
+            walkEstimate = travel.averageLegMs();
+        }
+        pass = null;
+        if (trayCapacity > 1) {
+            pass = new ArrayDeque<>();
+        }
+        admission = new AdmissionController(kitchenQueueSize, walkEstimate);
+        served = 0;
+        rejected = 0;
+        timedOut = 0;
+        totalLatency = 0;
+        maxLatency = 0;
+        lastOutcomeMs = 0;
+        latencies = new LatencyHistogram();
+
+        allWaiters = new SimWaiter[waiterCount];
+        for (int i = 1; i <= waiterCount; i++) {
+            allWaiters[i - 1] = new SimWaiter(i);
+            idleWaiters.add(allWaiters[i - 1]);
+        }
+    }
+
+    /**
+     * Сколько пикселей прошли все официанты (0 без TravelModel).
+     */
+    private long walked() {
+        double walked = 0;
+        for (SimWaiter waiter : allWaiters) {
+            if (waiter.walker != null) {
+                walked += waiter.walker.getWalked();
+            }
+        }
+        return Math.round(walked);
+    }
+
+    private long averageLatency() {
+        if (served == 0) {
+            return 0;
+        }
+        return totalLatency / served;
+    }
+
+    // ==================== ОФИЦИАНТЫ ====================
+
+    /**
+     * Раздать свободным официантам клиентов из очереди и готовые заказы со стойки.
+     */
+    private void wakeWaiters() {
+        while (!idleWaiters.isEmpty() && (!clientQueue.isEmpty() || (pass != null && !pass.isEmpty()))) {
+            idleWaiters.poll().takeNext();
+        }
+    }
+
+    /**
+     * Официант как конечный автомат: каждый переход — отдельное событие.
+     * О готовности своих заказов узнаёт сам — он их слушатель.
+     */
+    private class SimWaiter implements OrderStore.Listener {
+        private final int id;
+        private final TravelModel.Walker walker;
+        private final Order[] tray;
+        private boolean atCounter;
+
+        SimWaiter(int id) {
+            this.id = id;
+            this.tray = new Order[trayCapacity];
+            if (travel != null) {
+                this.walker = travel.walker(id);
+            } else {
+                this.walker = null;
+            }
+        }
+
+        /**
+         * Длина перехода, начатого событием: по планировке или фиксированная.
+         * seat — место клиента для TO_TABLE и DELIVER.
+         */
+        private long walkMs(WaiterEvent event, int seat) {
+            if (walker == null) {
+                return Constants.HEADLESS_WALK_MS;
+            }
+            return walker.legMs(event, seat);
+        }
+
+        void takeNext() {
+            // Готовая еда важнее новых клиентов
+            if (pass != null && !pass.isEmpty()) {
+                startTrip();
+                return;
+            }
+            while (true) {
+                Waiter.ClientRequest request = clientQueue.poll();
+                if (request == null) {
+                    journal(WaiterEvent.IDLE, 0, false);
+                    idleWaiters.add(this);
+                    return;
+                }
+                switch (admission.admit(request, clientQueue, orderQueue.size(), staffedCooks - retiringCooks)) {
+                    case ADMIT -> {
+                        // К столу, затем с заказом на кухню
+                        int seat = layout.seatFor(request.clientId(), request.vip());
+                        journal(WaiterEvent.TO_TABLE, request.clientId(), request.vip());
+                        long toTable = walkMs(WaiterEvent.TO_TABLE, seat);
+                        long toKitchen = walkMs(WaiterEvent.TO_KITCHEN, -1);
+                        EventJournal.waiter(WaiterEvent.TO_KITCHEN, id, request.clientId(), request.vip(),
+                            journalNanos() + TimeUnit.MILLISECONDS.toNanos(toTable), journalSource);
+                        engine.schedule(toTable + toKitchen, () -> handOver(request, seat));
+                        return;
+                    }
+                    case DEFER -> {
+                        // Клиент уже вернулся в начало очереди
+                        engine.schedule(Constants.ADMISSION_DEFER_MS, this::takeNext);
+                        return;
+                    }
+                    case REFUSE -> {
+                        // Клиент уходит, берём следующего
+                    }
+                }
+            }
+        }
+
+        private void handOver(Waiter.ClientRequest request, int seat) {
+            Order order = orders.create(request, seat, id, engine.now());
+            EventJournal.order(EventJournal.Type.ORDER_CREATED, order, journalNanos(), journalSource);
+            boolean accepted = addOrder(order);
+            admission.handedOver();
+            if (!accepted) {
+                rejected++;
+                lastOutcomeMs = engine.now();
+                order.releaseWaiter();
+                fail(request.clientId(), request.vip());
+                return;
+            }
+            engine.schedule(TimeUnit.SECONDS.toMillis(Constants.ORDER_TIMEOUT_SEC),
+                new OrderTimeout(order, order.getId()));
+            order.onComplete(this);
+
+            if (pass != null) {
+                // Заказ сам ляжет на стойку; пока у стойки — захватить то, что уже готово
+                atCounter = true;
+                if (pass.isEmpty()) {
+                    returnHome(request.clientId(), request.vip());
+                } else {
+                    startTrip();
+                }
+                return;
+            }
+            journal(WaiterEvent.WAIT, request.clientId(), request.vip());
+        }
+
+        @Override
+        public void orderCompleted(Order order) {
+            int clientId = order.getClientId();
+            boolean vip = order.isVip();
+            if (!order.isReady()) {
+                timedOut++;
+                lastOutcomeMs = engine.now();
+                order.releaseWaiter();
+                if (pass != null) {
+                    journal(WaiterEvent.FAIL, clientId, vip);
+                } else {
+                    fail(clientId, vip);
+                }
+                return;
+            }
+            if (pass != null) {
+                pass.add(order);
+                wakeWaiters();
+                return;
+            }
+            EventJournal.order(EventJournal.Type.PICKED_UP, order, journalNanos(), journalSource);
+            journal(WaiterEvent.DELIVER, clientId, vip);
+            engine.schedule(walkMs(WaiterEvent.DELIVER, order.getSeat()), () -> deliver(order));
+        }
+
+        private void deliver(Order order) {
+            served(order);
+            int clientId = order.getClientId();
+            boolean vip = order.isVip();
+            order.releaseWaiter();
+            returnHome(clientId, vip);
+        }
+
+        private void served(Order order) {
+            long latency = order.getWaitTime(engine.now());
+            served++;
+            lastOutcomeMs = engine.now();
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+            latencies.record(TimeUnit.MILLISECONDS.toNanos(latency));
+            journal(WaiterEvent.DONE, order.getClientId(), order.isVip());
+        }
+
+        // ---------- Поднос ----------
+
+        /**
+         * Взять со стойки до tray.length заказов и дойти до неё, если не там.
+         */
+        private void startTrip() {
+            int taken = 0;
+            while (taken < tray.length && !pass.isEmpty()) {
+                tray[taken++] = pass.poll();
+            }
+            long toCounter = 0;
+            if (!atCounter) {
+                journal(WaiterEvent.TO_KITCHEN, 0, false);
+                if (walker != null) {
+                    toCounter = walker.legMs(WaiterEvent.TO_KITCHEN, -1);
+                }
+                atCounter = true;
+            }
+            int count = taken;
+            engine.schedule(toCounter, () -> pickUp(count));
+        }
+
+        private void pickUp(int count) {
+            int stops = RoutePlanner.planTrip(layout, id, tray, count);
+            // Не уложившиеся в предел задержки — обратно на стойку, первыми
+            for (int i = count - 1; i >= stops; i--) {
+                pass.addFirst(tray[i]);
+                tray[i] = null;
+            }
+            for (int i = 0; i < stops; i++) {
+                EventJournal.order(EventJournal.Type.PICKED_UP, tray[i], journalNanos(), journalSource);
+            }
+            if (stops < count) {
+                wakeWaiters();
+            }
+            deliverStop(0, stops);
+        }
+
+        /**
+         * Следующая остановка маршрута; после последней — домой.
+         */
+        private void deliverStop(int stop, int count) {
+            if (stop == count) {
+                int lastClient = tray[count - 1].getClientId();
+                boolean lastVip = tray[count - 1].isVip();
+                for (int i = 0; i < count; i++) {
+                    tray[i].releaseWaiter();
+                }
+                Arrays.fill(tray, 0, count, null);
+                returnHome(lastClient, lastVip);
+                return;
+            }
+            Order order = tray[stop];
+            journal(WaiterEvent.DELIVER, order.getClientId(), order.isVip());
+            engine.schedule(walkMs(WaiterEvent.DELIVER, order.getSeat()), () -> {
+                served(order);
+                deliverStop(stop + 1, count);
+            });
+        }
+
+        private void fail(int clientId, boolean vip) {
+            journal(WaiterEvent.FAIL, clientId, vip);
+            returnHome(clientId, vip);
+        }
+
+        private void returnHome(int clientId, boolean vip) {
+            atCounter = false;
+            journal(WaiterEvent.RETURN, clientId, vip);
+            engine.schedule(walkMs(WaiterEvent.RETURN, -1), this::takeNext);
+        }
+
+        private void journal(WaiterEvent event, int clientId, boolean vip) {
+            EventJournal.waiter(event, id, clientId, vip, journalNanos(), journalSource);
+        }
+    }
+
+    /**
+     * Таймаут ожидания заказа. Снимается без хода часов, если заказ уже
+     * завершён или его слот перешёл к другому заказу (orderId не совпал).
+     */
+    private record OrderTimeout(Order order, int orderId) implements SimulationEngine.Cancellable {
+        @Override
+        public boolean isCancelled() {
+            return order.getId() != orderId || order.isDone();
+        }
+
+        @Override
+        public void run() {
+            order.timeOut();
+        }
+    }
+
+    // ==================== КУХНЯ ====================
+
+    /**
+     * Та же политика, что у Kitchen (KitchenPolicy): приоритет по сроку, заказ
+     * сверх ёмкости очереди отклоняется, просроченные снимаются, не начавшись,
+     * в режиме партий — добор того же блюда из очереди.
+     */
+    private boolean addOrder(Order order) {
+        order.setDeadline(kitchenPolicy.deadline());
+        if (!orderQueue.offer(order, KitchenPolicy.priorityOf(order))) {
+            order.releaseKitchen();
+            return false;
+        }
+        if (openBatch != null && openBatch[0].getDish() == order.getDish()) {
+            // Повар как раз добирает партию этого блюда — забирает из очереди, как Kitchen.collectBatch
+            openBatchSize = kitchenPolicy.collectSame(orderQueue, openBatch, openBatchSize);
+            if (openBatchSize == maxBatch) {
+                startOpenBatch();
+            }
+            return true;
+        }
+        startCooking();
+        return true;
+    }
+
+    private void startCooking() {
+        while (freeCooks > 0 && !orderQueue.isEmpty()) {
+            Order order = orderQueue.poll();
+            if (!kitchenPolicy.canCook(order)) {
+                continue;
+            }
+            Order[] batch = spareBatches.poll();
+            if (batch == null) {
+                batch = new Order[maxBatch];
+            }
+            batch[0] = order;
+            int size = 1;
+            if (maxBatch > 1) {
+                size = kitchenPolicy.collectSame(orderQueue, batch, size);
+            }
+            freeCooks--;
+
+            if (openBatch == null && KitchenPolicy.waitsForBatch(size, maxBatch, maxBatchDelayMs, orderQueue)) {
+                // Массив партии переиспользуется, поэтому своя партия узнаётся по номеру
+                openBatch = batch;
+                openBatchSize = size;
+                int ticket = ++openBatchTicket;
+                engine.schedule(maxBatchDelayMs, () -> {
+                    if (openBatch != null && openBatchTicket == ticket) {
+                        startOpenBatch();
+                    }
+                });
+            } else {
+                cook(batch, size);
+            }
+        }
+        // Повар с неполной партией не ждёт, если появилась другая работа
+        if (openBatch != null && freeCooks == 0 && !orderQueue.isEmpty()) {
+            startOpenBatch();
+        }
+    }
+
+    private void startOpenBatch() {
+        Order[] batch = openBatch;
+        int size = openBatchSize;
+        openBatch = null;
+        cook(batch, size);
+    }
+
+    private void cook(Order[] batch, int size) {
+        int cookTime = KitchenPolicy.batchCookTime(batch, size);
+        if (autoscaler != null) {
+            autoscaler.recordCookTime((double) cookTime / size);
+        }
+        for (int i = 0; i < size; i++) {
+            EventJournal.order(EventJournal.Type.COOK_STARTED, batch[i], journalNanos(), journalSource);
+        }
+        engine.schedule(cookTime, () -> {
+            if (retiringCooks > 0) {
+                retiringCooks--;
+                setStaff(staffedCooks - 1);
+            } else {
+                freeCooks++;
+            }
+            for (int i = 0; i < size; i++) {
+                EventJournal.order(EventJournal.Type.ORDER_READY, batch[i], journalNanos(), journalSource);
+                batch[i].done();
+                batch[i].releaseKitchen();
+            }
+            Arrays.fill(batch, null);
+            spareBatches.push(batch);
+            startCooking();
+        });
+    }
+
+    /**
+     * Виртуальное время для журнала, в наносекундах.
+     */
+    private long journalNanos() {
+        return engine.now() * 1_000_000L;
+    }
+
+    // ==================== АВТОМАСШТАБ ====================
+
+    /**
+     * Пересмотреть штат, как Kitchen.rescale. Уходят сначала свободные повара,
+     * занятые — после своей партии. Проверки идут, пока в смене есть работа.
+     */
+    private void rescale() {
+        int active = staffedCooks - retiringCooks;
+        int target = autoscaler.target(active, orderQueue.size());
+        while (target > active) {
+            if (retiringCooks > 0) {
+                retiringCooks--;
+            } else {
+                freeCooks++;
+                setStaff(staffedCooks + 1);
+            }
+            active++;
+        }
+        while (target < active) {
+            if (freeCooks > 0) {
+                freeCooks--;
+                setStaff(staffedCooks - 1);
+            } else {
+                retiringCooks++;
+            }
+            active--;
+        }
+        startCooking();
+
+        boolean idle = arrivalsFinished() && clientQueue.isEmpty() && orderQueue.isEmpty()
+            && (pass == null || pass.isEmpty())
+            && idleWaiters.size() == waiterCount && freeCooks == staffedCooks;
+        if (!idle) {
+            engine.schedule(Constants.AUTOSCALE_INTERVAL_MS, this::rescale);
+        }
+    }
+
+    private void setStaff(int cooks) {
+        long now = engine.now();
+        cookMs += (long) staffedCooks * (now - staffChangedAt);
+        staffChangedAt = now;
+        staffedCooks = cooks;
+    }
+
+    /**
+     * Итог смены. Время — виртуальное, кроме wallTimeMs.
+     * lastOutcomeMs — последняя доставка или отказ: после неё официанты
+     * только возвращаются домой, и для пропускной способности это время не в счёт.
+     */
+    public record Result(int clients, int served, int rejected, int timedOut, int expired, int turnedAway, int refused,
+                         long avgLatencyMs, long p99LatencyMs, long maxLatencyMs, double cookMinutes,
+                         long walkedPx, long virtualTimeMs, long lastOutcomeMs,
+                         long events, long wallTimeMs) {
+        /**
+         * Пройдено официантами на одного обслуженного, пикселей (0 без TravelModel).
+         */
+        public double walkedPerServed() {
+            if (served == 0) {
+                return 0;
+            }
+            return (double) walkedPx / served;
+        }
+
+        private String walkSummary() {
+            if (walkedPx == 0) {
+                return "";
+            }
+            return " | путь на клиента: " + Math.round(walkedPerServed()) + " пикс";
+        }
+
+        @Override
+        public String toString() {
+            return "Клиентов: " + clients + ", обслужено: " + served + ", отказ кухни: " + rejected
+                + ", таймаут: " + timedOut + " (снято кухней: " + expired + "), ушли из очереди: " + turnedAway
+                + ", отказ у входа: " + refused
+                + " | задержка ср/p99/макс: " + avgLatencyMs + "/" + p99LatencyMs + "/" + maxLatencyMs + " мс"
+                + " | повар-минут: " + Math.round(cookMinutes)
+                + walkSummary()
+                + " | виртуально: " + virtualTimeMs / 1000 + " с, событий: " + events
+                + ", реально: " + wallTimeMs + " мс";
+        }
+    }
+
+    /**
+     * Запуск: HeadlessRestaurant [повара] [официанты] [клиенты] [партия] [макс. поваров] [поднос]
+     * С пятым аргументом кухня масштабируется от 1 до указанного числа поваров
+     * (0 — без автомасштаба), с шестым официанты разносят заказы подносом.
+     */
+    public static void main(String[] args) {
+        int cooks = 2;
+        int waiters = 3;
+        int clients = 1_000_000;
+        if (args.length > 0) {
+            cooks = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            waiters = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            clients = Integer.parseInt(args[2]);
+        }
+        int batch = 1;
+        if (args.length > 3) {
+            batch = Integer.parseInt(args[3]);
+        }
+
+        HeadlessRestaurant restaurant = new HeadlessRestaurant(
+            cooks, waiters, Constants.KITCHEN_SIZE, Constants.CLIENT_QUEUE, clients);
+        restaurant.setBatching(batch, Constants.BATCH_MAX_DELAY_MS);
+        if (args.length > 4 && Integer.parseInt(args[4]) > 0) {
+            restaurant.setAutoscale(1, Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            restaurant.setTrayCapacity(Integer.parseInt(args[5]));
+        }
+        Log.info("Случайность: " + restaurant.getRandom() + " (-Drestaurant.seed)");
+        EventJournal.openFromProperty();
+        Log.info(restaurant.run().toString());
+        EventJournal.close();
+        Log.flush();
+    }
+}
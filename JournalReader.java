@@ -0,0 +1,267 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Чтение журнала EventJournal.
+ *
+ * Файл читается потоком через буфер CHUNK_SIZE байт, поэтому журнал
+ * в несколько гигабайт не нужно целиком держать в памяти или отображать.
+ * Запись отдаётся посетителю через один переиспользуемый Entry — без аллокаций.
+ * Пустые записи (не дописанные при аварийном завершении) пропускаются.
+ *
+ * Запуск: JournalReader journal.bin — восстановить статистику смены:
+ * число событий по типам и перцентили задержек по этапам заказа, как в Metrics.
+ */
+public final class JournalReader {
+
+    private static final int CHUNK_SIZE = EventJournal.RECORD_SIZE * 64 * 1024;
+
+    private static final Dish[] DISHES = Dish.values();
+
+    /**
+     * Запись журнала. Поля действительны только внутри visit().
+     */
+    public static final class Entry {
+        long nanos;
+        int clientId;
+        int orderId;
+        int waiterId;
+        int source;
+        EventJournal.Type type;
+        Dish dish;
+        boolean vip;
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public int getClientId() {
+            return clientId;
+        }
+
+        public int getOrderId() {
+            return orderId;
+        }
+
+        public int getWaiterId() {
+            return waiterId;
+        }
+
+        public int getSource() {
+            return source;
+        }
+
+        public EventJournal.Type getType() {
+            return type;
+        }
+
+        /**
+         * Блюдо или null у событий официанта.
+         */
+        public Dish getDish() {
+            return dish;
+        }
+
+        public boolean isVip() {
+            return vip;
+        }
+    }
+
+    public interface Visitor {
+        void visit(Entry entry);
+    }
+
+    private JournalReader() {}
+
+    /**
+     * Пройти все записи журнала по порядку.
+     *
+     * @return число прочитанных (непустых) записей
+     */
+    public static long read(Path path, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(EventJournal.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (header.getInt(EventJournal.AT_MAGIC) != EventJournal.MAGIC) {
+                throw new IOException("Не журнал ресторана: " + path);
+            }
+            int version = header.getShort(EventJournal.AT_VERSION);
+            if (version < 1 || version > EventJournal.VERSION
+                || header.getShort(EventJournal.AT_RECORD_SIZE) != EventJournal.RECORD_SIZE) {
+                throw new IOException("Неизвестная версия журнала: " + path);
+            }
+            // В версии 1 номер официанта — 2 байта со знаком, без старшего байта
+            boolean wideWaiter = version >= 2;
+
+            // Число записей известно, если журнал закрыт; иначе — по размеру файла
+            long count = header.getLong(EventJournal.AT_COUNT);
+            long available = (channel.size() - EventJournal.HEADER_SIZE) / EventJournal.RECORD_SIZE;
+            if (count < 0 || count > available) {
+                count = available;
+            }
+
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            Entry entry = new Entry();
+            long position = EventJournal.HEADER_SIZE;
+            long remaining = count;
+            long visited = 0;
+            while (remaining > 0) {
+                int records = (int) Math.min(remaining, CHUNK_SIZE / EventJournal.RECORD_SIZE);
+                chunk.clear().limit(records * EventJournal.RECORD_SIZE);
+                readFully(channel, chunk, position);
+                for (int i = 0; i < records; i++) {
+                    if (decode(chunk, i * EventJournal.RECORD_SIZE, wideWaiter, entry)) {
+                        visitor.visit(entry);
+                        visited++;
+                    }
+                }
+                position += (long) records * EventJournal.RECORD_SIZE;
+                remaining -= records;
+            }
+            return visited;
+        }
+    }
+
+    private static boolean decode(ByteBuffer chunk, int at, boolean wideWaiter, Entry entry) {
+        EventJournal.Type type = EventJournal.Type.ofCode(chunk.get(at + EventJournal.AT_TYPE));
+        if (type == null) {
+            return false;
+        }
+        entry.type = type;
+        entry.nanos = chunk.getLong(at + EventJournal.AT_NANOS);
+        entry.clientId = chunk.getInt(at + EventJournal.AT_CLIENT);
+        entry.orderId = chunk.getInt(at + EventJournal.AT_ORDER);
+        if (wideWaiter) {
+            entry.waiterId = (chunk.getShort(at + EventJournal.AT_WAITER) & 0xFFFF)
+                | (chunk.get(at + EventJournal.AT_WAITER_HIGH) & 0xFF) << 16;
+        } else {
+            entry.waiterId = chunk.getShort(at + EventJournal.AT_WAITER);
+        }
+        entry.source = chunk.getShort(at + EventJournal.AT_SOURCE);
+        int dishCode = chunk.get(at + EventJournal.AT_DISH);
+        if (dishCode > 0 && dishCode <= DISHES.length) {
+            entry.dish = DISHES[dishCode - 1];
+        } else {
+            entry.dish = null;
+        }
+        entry.vip = (chunk.get(at + EventJournal.AT_FLAGS) & EventJournal.FLAG_VIP) != 0;
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Журнал обрезан");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    // ==================== СТАТИСТИКА ====================
+
+    /**
+     * Статистика смены по журналу: счётчики событий и гистограммы этапов.
+     * Заказ связывается с клиентом по (источник, клиент): у клиента один заказ.
+     */
+    public static final class Stats implements Visitor {
+
+        // Отметки заказа: создан, начат, готов, забран
+        private static final int CREATED = 0;
+        private static final int COOK_STARTED = 1;
+        private static final int READY = 2;
+        private static final int PICKED_UP = 3;
+
+        private final long[] counts = new long[EventJournal.Type.values().length];
+        private final LatencyHistogram[] stages = new LatencyHistogram[Metrics.Stage.values().length];
+        private final Map<Long, long[]> inFlight = new HashMap<>();
+
+        public Stats() {
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = new LatencyHistogram();
+            }
+        }
+
+        @Override
+        public void visit(Entry entry) {
+            counts[entry.type.ordinal()]++;
+            long key = (long) entry.source << 32 | (entry.clientId & 0xFFFFFFFFL);
+            switch (entry.type) {
+                case ORDER_CREATED -> {
+                    long[] marks = new long[4];
+                    marks[CREATED] = entry.nanos;
+                    inFlight.put(key, marks);
+                }
+                case COOK_STARTED -> mark(key, COOK_STARTED, entry.nanos);
+                case ORDER_READY -> mark(key, READY, entry.nanos);
+                case PICKED_UP -> mark(key, PICKED_UP, entry.nanos);
+                case WAITER_DONE -> {
+                    long[] marks = inFlight.remove(key);
+                    if (marks != null) {
+                        record(marks, entry.nanos);
+                    }
+                }
+                case WAITER_FAIL -> inFlight.remove(key);
+                default -> {
+                }
+            }
+        }
+
+        private void mark(long key, int stage, long nanos) {
+            long[] marks = inFlight.get(key);
+            if (marks != null) {
+                marks[stage] = nanos;
+            }
+        }
+
+        private void record(long[] marks, long deliveredNanos) {
+            stages[Metrics.Stage.QUEUE_WAIT.ordinal()].record(marks[COOK_STARTED] - marks[CREATED]);
+            stages[Metrics.Stage.COOK.ordinal()].record(marks[READY] - marks[COOK_STARTED]);
+            stages[Metrics.Stage.PICKUP_WAIT.ordinal()].record(marks[PICKED_UP] - marks[READY]);
+            stages[Metrics.Stage.DELIVERY.ordinal()].record(deliveredNanos - marks[PICKED_UP]);
+            stages[Metrics.Stage.END_TO_END.ordinal()].record(deliveredNanos - marks[CREATED]);
+        }
+
+        public long getCount(EventJournal.Type type) {
+            return counts[type.ordinal()];
+        }
+
+        public LatencyHistogram histogram(Metrics.Stage stage) {
+            return stages[stage.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (EventJournal.Type type : EventJournal.Type.values()) {
+                sb.append(String.format("%-18s %d%n", type, counts[type.ordinal()]));
+            }
+            for (Metrics.Stage stage : Metrics.Stage.values()) {
+                LatencyHistogram h = histogram(stage);
+                sb.append(String.format("%-12s n=%d p50/p99/p999/макс: %d/%d/%d/%d мс%n", stage, h.getCount(),
+                    h.getP50Micros() / 1000, h.getP99Micros() / 1000, h.getP999Micros() / 1000,
+                    h.getMaxMicros() / 1000));
+            }
+            return sb.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Запуск: JournalReader <журнал>");
+            System.exit(2);
+        }
+        Stats stats = new Stats();
+        long started = System.currentTimeMillis();
+        long records = read(Path.of(args[0]), stats);
+        System.out.print(stats);
+        System.out.println("Записей: " + records + ", прочитано за " + (System.currentTimeMillis() - started) + " мс");
+    }
+}
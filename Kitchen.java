@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -6,28 +7,129 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Кухня ресторана.
  * 
  * Реализует пул поваров через ExecutorService.
- * Заказы поступают через BlockingQueue и обрабатываются параллельно.
+ * Заказы поступают в ограниченную очередь с приоритетом (KitchenQueue), повара сами
+ * забирают их оттуда (без промежуточного диспетчера) и готовят параллельно.
+ *
+ * Порядок — по сроку заказа (EDF), у VIP срок сдвинут на VIP_PRIORITY_MS раньше.
+ * Сроки не меняются после приёма, и каждый следующий заказ получает срок позже,
+ * поэтому обычный заказ могут обогнать только VIP, пришедшие не позже чем
+ * через VIP_PRIORITY_MS после него, — он не голодает.
+ * Заказ, который к сроку уже не успеть или который официант перестал ждать,
+ * не готовится: под перегрузкой повара не тратят время на заведомо просроченное.
+ * Приготовив, сняв или не приняв заказ, кухня его отпускает (Order.releaseKitchen).
+ * Эти решения — в KitchenPolicy, общей с HeadlessRestaurant.
+ *
+ * С автомасштабом (setAutoscale) число поваров меняется между минимумом и максимумом
+ * по решению CookAutoscaler; лишний повар доготавливает текущее и уходит.
+ * Штат учитывается в повар-минутах — для сравнения стоимости с задержкой.
  */
 public class Kitchen {
     
+    private final int cookCount;
     private final int maxQueueSize;
-    private final BlockingQueue<Order> orderQueue;
-    private final ExecutorService cookPool;
-    private final Thread dispatcher;
+    private final KitchenQueue orderQueue;
+    private final ThreadPoolExecutor cookPool;
     private final AtomicBoolean open = new AtomicBoolean(false);
+    private final KitchenPolicy policy = new KitchenPolicy(System::currentTimeMillis, System::nanoTime, 0);
+
+    // Штат: повара на смене, ожидающие ухода, учёт повар-времени
+    private final AtomicInteger activeCooks = new AtomicInteger(0);
+    private final AtomicInteger retireRequests = new AtomicInteger(0);
+    // Учёт смен меняется и читается под shiftLock: иначе читатель между
+    // обновлениями получил бы сумму, сбитую на целое System.nanoTime()
+    private final Object shiftLock = new Object();
+    private int onShift;
+    private long shiftStartSum;
+    private long finishedShiftNanos;
+    private CookAutoscaler autoscaler;
+    private ScheduledExecutorService scaler;
+
+    private volatile double timeScale = 1.0;
+    private int maxBatch = 1;
+    private long maxBatchDelayMs = 0;
 
     public Kitchen(int cookCount, int queueSize) {
+        this(cookCount, queueSize, ExecutionMode.PLATFORM);
+    }
+
+    public Kitchen(int cookCount, int queueSize, ExecutionMode mode) {
+        this.cookCount = cookCount;
         this.maxQueueSize = queueSize;
-        this.orderQueue = new LinkedBlockingQueue<>(queueSize);
-        this.cookPool = Executors.newFixedThreadPool(cookCount, new CookThreadFactory());
-        this.dispatcher = new Thread(this::dispatchOrders, "Диспетчер");
+        this.orderQueue = new KitchenQueue(queueSize);
+        this.cookPool = new ThreadPoolExecutor(cookCount, cookCount, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new CookThreadFactory(mode));
+    }
+
+    /**
+     * Автомасштаб: от minCooks до maxCooks поваров по загрузке очереди.
+     * Начинает с числа поваров из конструктора. Задаётся до start().
+     */
+    public void setAutoscale(int minCooks, int maxCooks) {
+        autoscaler = new CookAutoscaler(minCooks, maxCooks, maxQueueSize);
+        int threads = Math.max(cookCount, autoscaler.getMaxCooks());
+        cookPool.setMaximumPoolSize(threads);
+        cookPool.setCorePoolSize(threads);
     }
 
     public void start() {
         if (open.compareAndSet(false, true)) {
-            dispatcher.start();
-            Constants.log("[КУХНЯ] Открыта");
+            for (int i = 0; i < cookCount; i++) {
+                addCook();
+            }
+            if (autoscaler != null) {
+                scaler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "Автомасштаб кухни"));
+                scaler.scheduleAtFixedRate(this::rescale, Constants.AUTOSCALE_INTERVAL_MS,
+                    Constants.AUTOSCALE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+            Log.info("[КУХНЯ] Открыта");
+        }
+    }
+
+    private void addCook() {
+        activeCooks.incrementAndGet();
+        cookPool.execute(this::cookLoop);
+    }
+
+    /**
+     * Пересмотреть штат. Сначала отменяются ещё не исполненные уходы.
+     */
+    private void rescale() {
+        int active = activeCooks.get() - retireRequests.get();
+        int target = autoscaler.target(active, orderQueue.size());
+        if (target == active) {
+            return;
+        }
+        Log.info(() -> "[КУХНЯ] Поваров: " + active + " → " + target + " (очередь: " + orderQueue.size() + ")");
+
+        int diff = target - active;
+        while (diff > 0) {
+            int pending = retireRequests.get();
+            if (pending > 0) {
+                if (retireRequests.compareAndSet(pending, pending - 1)) {
+                    diff--;
+                }
+            } else {
+                addCook();
+                diff--;
+            }
+        }
+        if (diff < 0) {
+            retireRequests.addAndGet(-diff);
+        }
+    }
+
+    /**
+     * Повар уходит со смены, если есть запрос на уход.
+     */
+    private boolean tryRetire() {
+        int pending = retireRequests.get();
+        while (pending > 0) {
+            if (retireRequests.compareAndSet(pending, pending - 1)) {
+                return true;
+            }
+            pending = retireRequests.get();
         }
+        return false;
     }
 
     /**
@@ -35,17 +137,26 @@ public class Kitchen {
      */
     public boolean addOrder(Order order) {
         if (!open.get()) {
+            order.releaseKitchen();
             return false;
         }
         
-        boolean accepted = orderQueue.offer(order);
+        // Лог собирается позже — поля заказа захватываются значениями
+        int orderId = order.getId();
+        boolean vip = order.isVip();
+        Dish dish = order.getDish();
+        int clientId = order.getClientId();
+        order.setDeadline(policy.deadline());
+        boolean accepted = orderQueue.offer(order, KitchenPolicy.priorityOf(order));
         int queueSize = orderQueue.size();
         
         if (accepted) {
             String loadStatus = getLoadStatus(queueSize);
-            Constants.log("[КУХНЯ] Принят: " + order + " | Очередь: " + queueSize + "/" + maxQueueSize + loadStatus);
+            Log.debug(() -> "[КУХНЯ] Принят: " + Order.describe(orderId, vip, dish, clientId)
+                + " | Очередь: " + queueSize + "/" + maxQueueSize + loadStatus);
         } else {
-            Constants.log("[КУХНЯ] Очередь полная, отклонён: " + order);
+            order.releaseKitchen();
+            Log.debug(() -> "[КУХНЯ] Очередь полная, отклонён: " + Order.describe(orderId, vip, dish, clientId));
         }
         
         return accepted;
@@ -53,95 +164,256 @@ public class Kitchen {
 
     private String getLoadStatus(int queueSize) {
         double load = (double) queueSize / maxQueueSize;
-        if (load > 0.8) {
+        if (load > Constants.KITCHEN_CRITICAL_LOAD) {
             return " [КРИТИЧЕСКАЯ ЗАГРУЗКА]";
         }
-        if (load > 0.5) {
+        if (load > Constants.KITCHEN_HIGH_LOAD) {
             return " [Высокая загрузка]";
         }
         return "";
     }
 
     /**
-     * Диспетчер — раздаёт заказы поварам.
+     * Смена повара — берёт заказы прямо из очереди кухни, пока она не закрыта и не пуста.
+     * В режиме партий добирает к взятому заказу заказы того же блюда.
+     * Свободный повар раз в COOK_IDLE_CHECK_MS проверяет, не пора ли ему уйти.
      */
-    private void dispatchOrders() {
-        while (open.get() || !orderQueue.isEmpty()) {
-            try {
-                Order order = orderQueue.poll(200, TimeUnit.MILLISECONDS);
-                if (order != null) {
-                    cookPool.submit(() -> cook(order));
+    private void cookLoop() {
+        long shiftStart = startShift();
+        Order[] batch = new Order[maxBatch];
+        long idleCheck = TimeUnit.MILLISECONDS.toNanos(Constants.COOK_IDLE_CHECK_MS);
+
+        try {
+            while (true) {
+                Order order = orderQueue.poll(idleCheck);
+                if (order == null) {
+                    if (orderQueue.isClosed() || tryRetire()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (policy.canCook(order)) {
+                    batch[0] = order;
+                    int size = 1;
+                    if (batch.length > 1) {
+                        size = collectBatch(batch);
+                    }
+                    cook(batch, size);
+                    Arrays.fill(batch, 0, size, null);
+                }
+                if (tryRetire()) {
+                    break;
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (RejectedExecutionException e) {
-                Constants.log("[КУХНЯ] Повара перегружены");
-                break;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeCooks.decrementAndGet();
+            endShift(shiftStart);
+        }
+    }
+
+    private long startShift() {
+        synchronized (shiftLock) {
+            long shiftStart = System.nanoTime();
+            onShift++;
+            shiftStartSum += shiftStart;
+            return shiftStart;
+        }
+    }
+
+    private void endShift(long shiftStart) {
+        synchronized (shiftLock) {
+            onShift--;
+            shiftStartSum -= shiftStart;
+            finishedShiftNanos += System.nanoTime() - shiftStart;
+        }
+    }
+
+    /**
+     * Описание заказа для сообщения лога — только если DEBUG включён.
+     */
+    private static String describeIfDebug(Order order) {
+        if (!Log.isEnabled(Log.Level.DEBUG)) {
+            return null;
         }
+        return order.toString();
     }
 
     /**
-     * Приготовление блюда.
+     * Добрать партию к batch[0]: все заказы того же блюда из очереди.
+     * Если партия неполная и другой работы нет — ждать добора не дольше maxBatchDelayMs.
      */
-    private void cook(Order order) {
+    private int collectBatch(Order[] batch) throws InterruptedException {
+        long waitUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+        int size = 1;
+
+        while (true) {
+            size = policy.collectSame(orderQueue, batch, size);
+            long remaining = waitUntil - System.nanoTime();
+            if (!KitchenPolicy.waitsForBatch(size, batch.length, remaining, orderQueue)) {
+                // Полная партия, вышло время или ждёт другая работа
+                return size;
+            }
+            if (!orderQueue.awaitOrder(remaining)) {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Приготовление партии из size заказов одного блюда (обычно — одного заказа).
+     */
+    private void cook(Order[] batch, int size) {
         String cookName = Thread.currentThread().getName();
-        Constants.log("[" + cookName + "] Готовит: " + order);
-        
+        String first = describeIfDebug(batch[0]);
+        Dish dish = batch[0].getDish();
+        if (size == 1) {
+            Log.debug(() -> "[" + cookName + "] Готовит: " + first);
+        } else {
+            Log.debug(() -> "[" + cookName + "] Готовит партию: " + size + " × " + dish);
+        }
+
         try {
-            int cookTime = order.getDish().getTime();
-            if (order.isVip()) {
-                cookTime = (int) (cookTime * Constants.VIP_COOK_MULTIPLIER);
+            long startedAt = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                batch[i].markCookStarted();
+                EventJournal.order(EventJournal.Type.COOK_STARTED, batch[i], batch[i].getCookStartedNanos(), 0);
             }
-            
-            Thread.sleep(cookTime);
-            
-            Constants.log("[" + cookName + "] Готово: " + order + " (" + cookTime + " мс)");
-            order.done();
-            
+            int cookTime = KitchenPolicy.batchCookTime(batch, size);
+            if (autoscaler != null) {
+                autoscaler.recordCookTime((double) cookTime / size);
+            }
+            long sleepTime = Math.round(cookTime * timeScale);
+            if (sleepTime > 0) {
+                Thread.sleep(sleepTime);
+            }
+
+            Log.debug(() -> "[" + cookName + "] Готово: " + first + batchSuffix(size) + " (" + cookTime + " мс)");
+            for (int i = 0; i < size; i++) {
+                batch[i].done();
+                EventJournal.order(EventJournal.Type.ORDER_READY, batch[i], batch[i].getReadyNanos(), 0);
+                Metrics.recordCooked(batch[i]);
+                batch[i].releaseKitchen();
+            }
+            Metrics.cookBusy(System.nanoTime() - startedAt);
+
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            Constants.log("[" + cookName + "] Прерван: " + order);
+            String interrupted = batch[0].toString();
+            // Недоготовленное не достанется официантам — снимаем, чтобы никто не ждал зря
+            for (int i = 0; i < size; i++) {
+                batch[i].expire();
+                batch[i].releaseKitchen();
+            }
+            Log.warn(() -> "[" + cookName + "] Прерван: " + interrupted + batchSuffix(size));
         }
     }
 
+    private static String batchSuffix(int size) {
+        if (size == 1) {
+            return "";
+        }
+        return " и ещё " + (size - 1);
+    }
+
     public void shutdown() {
-        Constants.log("[КУХНЯ] Закрывается...");
+        Log.info("[КУХНЯ] Закрывается...");
         open.set(false);
+        if (scaler != null) {
+            scaler.shutdownNow();
+        }
         
         try {
-            dispatcher.join(5000);
+            // Повара дорабатывают принятые заказы и заканчивают смену
+            orderQueue.close();
             cookPool.shutdown();
             
             if (!cookPool.awaitTermination(10, TimeUnit.SECONDS)) {
                 cookPool.shutdownNow();
-                Constants.log("[КУХНЯ] Принудительное завершение");
+                Log.warn("[КУХНЯ] Принудительное завершение");
             }
         } catch (InterruptedException e) {
             cookPool.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        // Заказы, до которых повара так и не дошли, снимаются
+        Order left;
+        while ((left = orderQueue.poll()) != null) {
+            left.expire();
+            left.releaseKitchen();
+        }
         
-        Constants.log("[КУХНЯ] Закрыта");
+        if (policy.getExpired() > 0) {
+            Log.info("[КУХНЯ] Снято просроченных заказов: " + policy.getExpired());
+        }
+        Log.info(() -> String.format("[КУХНЯ] Закрыта, отработано %.1f повар-минут", getCookMinutes()));
+    }
+
+    /**
+     * Готовка партиями: повар берёт до maxBatch заказов одного блюда и готовит их вместе
+     * (см. batchCookTime). Неполную партию повар добирает не дольше maxDelayMs и только
+     * пока нет другой работы. 1 — без партий (по умолчанию). Задаётся до start().
+     */
+    public void setBatching(int maxBatch, long maxDelayMs) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxBatchDelayMs = Math.max(0, maxDelayMs);
+    }
+
+    /**
+     * Масштаб реального времени готовки: 1 — как есть, 0 — мгновенно
+     * (бенчмарки и ускоренные прогоны).
+     */
+    public void setTimeScale(double timeScale) {
+        this.timeScale = timeScale;
+        policy.setTimeScale(timeScale);
     }
 
     public boolean isOpen() {
         return open.get();
     }
 
+    /**
+     * Сколько поваров сейчас на смене.
+     */
+    public int getCookCount() {
+        return activeCooks.get();
+    }
+
+    /**
+     * Суммарное время поваров на смене (наносекунды), включая идущие смены.
+     */
+    public long getCookNanos() {
+        synchronized (shiftLock) {
+            return finishedShiftNanos + onShift * System.nanoTime() - shiftStartSum;
+        }
+    }
+
+    public double getCookMinutes() {
+        return getCookNanos() / 60e9;
+    }
+
     public int getQueueSize() {
         return orderQueue.size();
     }
 
+    public int getExpiredCount() {
+        return policy.getExpired();
+    }
+
     private static class CookThreadFactory implements ThreadFactory {
         private final AtomicInteger counter = new AtomicInteger(0);
+        private final ExecutionMode mode;
+
+        CookThreadFactory(ExecutionMode mode) {
+            this.mode = mode;
+        }
 
         @Override
         public Thread newThread(Runnable r) {
             int idx = counter.getAndIncrement();
             String name = Constants.COOK_NAMES[idx % Constants.COOK_NAMES.length];
-            return new Thread(r, name);
+            return mode.newThread(name, r);
         }
     }
 }
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Решения кухни, общие для Kitchen (повара-потоки, реальные часы)
+ * и HeadlessRestaurant (события на виртуальных часах).
+ *
+ * Срок и приоритет заказа, время готовки партии, стоит ли вообще готовить
+ * заказ и добор партии того же блюда. Движки различаются только тем,
+ * как ждут, — что делать, решается здесь, поэтому политика у них одна.
+ *
+ * Часы передаются снаружи: миллисекунды — для сроков, наносекунды — для журнала.
+ */
+public final class KitchenPolicy {
+
+    private final LongSupplier clockMs;
+    private final LongSupplier journalNanos;
+    private final int journalSource;
+    private final AtomicInteger expired = new AtomicInteger(0);
+    private volatile double timeScale = 1.0;
+
+    public KitchenPolicy(LongSupplier clockMs, LongSupplier journalNanos, int journalSource) {
+        this.clockMs = clockMs;
+        this.journalNanos = journalNanos;
+        this.journalSource = journalSource;
+    }
+
+    /**
+     * Масштаб времени готовки для проверки срока (см. Kitchen.setTimeScale).
+     */
+    public void setTimeScale(double timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * Срок заказа, принятого сейчас.
+     */
+    public long deadline() {
+        return clockMs.getAsLong() + TimeUnit.SECONDS.toMillis(Constants.ORDER_TIMEOUT_SEC);
+    }
+
+    /**
+     * Стоит ли готовить заказ: официант ещё ждёт и к сроку можно успеть.
+     * Заказ, который готовить не стоит, кухня отпускает, не успевающий — снимает.
+     */
+    public boolean canCook(Order order) {
+        if (order.isDone()) {
+            // Официант уже не ждёт (таймаут)
+            order.releaseKitchen();
+            return false;
+        }
+        long cookTime = Math.round(cookTimeFor(order) * timeScale);
+        if (clockMs.getAsLong() + cookTime > order.getDeadline()) {
+            expired.incrementAndGet();
+            if (Log.isEnabled(Log.Level.DEBUG)) {
+                String described = order.toString();
+                Log.debug(() -> "[КУХНЯ] Не успеть к сроку, снят: " + described);
+            }
+            EventJournal.order(EventJournal.Type.ORDER_EXPIRED, order, journalNanos.getAsLong(), journalSource);
+            order.expire();
+            order.releaseKitchen();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Добрать к партии batch[0..size) заказы того же блюда из очереди;
+     * те, что готовить не стоит, отсеиваются (canCook).
+     *
+     * @return новый размер партии
+     */
+    public int collectSame(KitchenQueue queue, Order[] batch, int size) {
+        int end = size + queue.drainSame(batch[0].getDish(), batch, size, batch.length - size);
+        int kept = size;
+        for (int i = size; i < end; i++) {
+            if (canCook(batch[i])) {
+                batch[kept++] = batch[i];
+            }
+        }
+        Arrays.fill(batch, kept, end, null);
+        return kept;
+    }
+
+    /**
+     * Ждать ли добора неполной партии: время на добор ещё есть
+     * и другой работы в очереди нет.
+     */
+    public static boolean waitsForBatch(int size, int maxBatch, long remaining, KitchenQueue queue) {
+        return size < maxBatch && remaining > 0 && queue.isEmpty();
+    }
+
+    /**
+     * Сколько заказов снято, потому что к сроку не успеть.
+     */
+    public int getExpired() {
+        return expired.get();
+    }
+
+    // ==================== ВРЕМЯ И ПРИОРИТЕТ ====================
+
+    /**
+     * Время приготовления заказа (VIP готовится дольше).
+     */
+    public static int cookTimeFor(Order order) {
+        int cookTime = order.getCookTime();
+        if (order.isVip()) {
+            cookTime = (int) (cookTime * Constants.VIP_COOK_MULTIPLIER);
+        }
+        return cookTime;
+    }
+
+    /**
+     * Время готовки партии: самое долгое блюдо партии, растущее
+     * как size^BATCH_COOK_EXPONENT — каждая следующая порция дешевле.
+     */
+    public static int batchCookTime(Order[] batch, int size) {
+        int longest = 0;
+        for (int i = 0; i < size; i++) {
+            longest = Math.max(longest, cookTimeFor(batch[i]));
+        }
+        if (size == 1) {
+            return longest;
+        }
+        return (int) Math.round(longest * Math.pow(size, Constants.BATCH_COOK_EXPONENT));
+    }
+
+    /**
+     * Ключ очереди кухни: срок заказа, для VIP — раньше.
+     */
+    public static long priorityOf(Order order) {
+        long key = order.getDeadline();
+        if (order.isVip()) {
+            key -= Constants.VIP_PRIORITY_MS;
+        }
+        return key;
+    }
+}
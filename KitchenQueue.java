@@ -0,0 +1,243 @@
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченная очередь заказов кухни с приоритетом.
+ *
+ * Двоичная куча на массивах: меньше ключ — раньше в работу,
+ * при равных ключах — в порядке поступления. Ключ задаёт кухня
+ * (см. KitchenPolicy.priorityOf). Добавление и извлечение без аллокаций.
+ *
+ * Вместо маркера закрытия — close(): новые заказы больше не принимаются,
+ * повара дорабатывают очередь, а poll(timeoutNanos) на пустой закрытой очереди
+ * сразу возвращает null.
+ */
+public final class KitchenQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Order[] orders;
+    private final long[] keys;
+    private final long[] seqs;
+    private int size;
+    private long nextSeq;
+    private boolean closed;
+
+    public KitchenQueue(int capacity) {
+        this.orders = new Order[capacity];
+        this.keys = new long[capacity];
+        this.seqs = new long[capacity];
+    }
+
+    /**
+     * Добавить заказ с ключом приоритета.
+     *
+     * @return false, если очередь полна или закрыта
+     */
+    public boolean offer(Order order, long key) {
+        lock.lock();
+        try {
+            if (closed || size == orders.length) {
+                return false;
+            }
+            siftUp(size, order, key, nextSeq++);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Взять самый срочный заказ без ожидания.
+     *
+     * @return заказ или null, если очередь пуста
+     */
+    public Order poll() {
+        lock.lock();
+        try {
+            if (size == 0) {
+                return null;
+            }
+            return removeAt(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Взять самый срочный заказ, подождав не дольше timeoutNanos.
+     *
+     * @return заказ или null, если не дождались или очередь закрыта и пуста
+     */
+    public Order poll(long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long nanos = timeoutNanos;
+            while (size == 0) {
+                if (closed || nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return removeAt(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Забрать до max самых срочных заказов того же блюда (готовка партией).
+     *
+     * @return сколько заказов положено в batch, начиная с индекса from
+     */
+    public int drainSame(Dish dish, Order[] batch, int from, int max) {
+        lock.lock();
+        try {
+            int taken = 0;
+            while (taken < max) {
+                int best = -1;
+                for (int i = 0; i < size; i++) {
+                    if (orders[i].getDish() == dish
+                        && (best < 0 || before(keys[i], seqs[i], keys[best], seqs[best]))) {
+                        best = i;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                batch[from + taken] = removeAt(best);
+                taken++;
+            }
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Дождаться появления заказа, не забирая его.
+     *
+     * @return true, если в очереди есть заказ
+     */
+    public boolean awaitOrder(long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long nanos = timeoutNanos;
+            while (size == 0 && !closed && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            if (size > 0) {
+                // Сигнал мог достаться нам, а заказ заберёт другой повар
+                notEmpty.signal();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Закрыть очередь: разбудить ждущих поваров, новые заказы не принимать.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return orders.length;
+    }
+
+    private Order removeAt(int idx) {
+        Order removed = orders[idx];
+        size--;
+        Order last = orders[size];
+        long lastKey = keys[size];
+        long lastSeq = seqs[size];
+        orders[size] = null;
+        if (idx < size) {
+            siftDown(idx, last, lastKey, lastSeq);
+            if (orders[idx] == last) {
+                siftUp(idx, last, lastKey, lastSeq);
+            }
+        }
+        return removed;
+    }
+
+    private void siftUp(int idx, Order order, long key, long seq) {
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            if (!before(key, seq, keys[parent], seqs[parent])) {
+                break;
+            }
+            move(parent, idx);
+            idx = parent;
+        }
+        set(idx, order, key, seq);
+    }
+
+    private void siftDown(int idx, Order order, long key, long seq) {
+        int half = size >>> 1;
+        while (idx < half) {
+            int child = 2 * idx + 1;
+            int right = child + 1;
+            if (right < size && before(keys[right], seqs[right], keys[child], seqs[child])) {
+                child = right;
+            }
+            if (!before(keys[child], seqs[child], key, seq)) {
+                break;
+            }
+            move(child, idx);
+            idx = child;
+        }
+        set(idx, order, key, seq);
+    }
+
+    private static boolean before(long key, long seq, long otherKey, long otherSeq) {
+        if (key != otherKey) {
+            return key < otherKey;
+        }
+        return seq < otherSeq;
+    }
+
+    private void move(int from, int to) {
+        set(to, orders[from], keys[from], seqs[from]);
+    }
+
+    private void set(int idx, Order order, long key, long seq) {
+        orders[idx] = order;
+        keys[idx] = key;
+        seqs[idx] = seq;
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах.
+ *
+ * Лог-линейные корзины: 32 корзины на каждую степень двойки (погрешность ~3%),
+ * значения до 2^40 нс (~18 минут), всё больше — в последнюю корзину.
+ * Запись — один атомарный инкремент, без блокировок и аллокаций.
+ * Перцентили считаются по снимку корзин в момент чтения.
+ */
+public final class LatencyHistogram implements LatencyMXBean {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Записать значение в наносекундах. Отрицательные считаются нулём.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Значение перцентиля (0..100) в наносекундах — верхняя граница корзины.
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        rank = Math.max(1, Math.min(total, rank));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Добавить все значения другой гистограммы (сводка по нескольким источникам).
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = other.counts.get(i);
+            if (n != 0) {
+                counts.addAndGet(i, n);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+
+        long value = other.max.get();
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        return sum.sum() / 1000.0 / n;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return valueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getP99Micros() {
+        return valueAtPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getP999Micros() {
+        return valueAtPercentile(99.9) / 1000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return max.get() / 1000;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb > MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+    static long upperBound(int bucket) {
+        int octave = bucket >>> SUB_BITS;
+        int sub = bucket & (SUB_COUNT - 1);
+        if (octave == 0) {
+            return sub;
+        }
+        int shift = octave - 1;
+        long lower = (long) (SUB_COUNT | sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Гистограмма задержек в JMX (микросекунды).
+ */
+public interface LatencyMXBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+}
@@ -0,0 +1,205 @@
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный лог с уровнями.
+ *
+ * Вызывающий поток только кладёт сообщение в кольцевой буфер (CAS, без блокировок),
+ * форматирует и пишет в System.out фоновый поток — пачками.
+ * Сообщение можно передать как Supplier: строка соберётся в фоновом потоке
+ * и только если уровень включён. Всё, что меняется со временем (размер очереди,
+ * время ожидания), нужно посчитать до вызова и захватить в лямбду значением.
+ * Если буфер переполнен, сообщение отбрасывается — вызывающий поток не ждёт.
+ */
+public final class Log {
+
+    private Log() {}
+
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        OFF
+    }
+
+    private static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NS = 1_000_000;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final PrintStream OUT = System.out;
+
+    // Кольцевой буфер: слот i занят сообщением с номером seq, если published[i] == seq + 1
+    private static final Object[] messages = new Object[CAPACITY];
+    private static final long[] times = new long[CAPACITY];
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong head = new AtomicLong(0);
+    private static final AtomicLong dropped = new AtomicLong(0);
+    private static volatile long tail = 0;
+
+    private static volatile Level level = initialLevel();
+    private static final Thread writer;
+
+    static {
+        writer = new Thread(Log::writeLoop, "Логгер");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "Логгер-сброс"));
+    }
+
+    private static Level initialLevel() {
+        String value = System.getProperty("restaurant.log", Level.INFO.name());
+        try {
+            return Level.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.ordinal() >= level.ordinal() && messageLevel != Level.OFF;
+    }
+
+    public static void debug(String message) {
+        if (isEnabled(Level.DEBUG)) {
+            publish(message);
+        }
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            publish(message);
+        }
+    }
+
+    public static void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            publish(message);
+        }
+    }
+
+    public static void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            publish(message);
+        }
+    }
+
+    public static void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            publish(message);
+        }
+    }
+
+    public static void warn(Supplier<String> message) {
+        if (isEnabled(Level.WARN)) {
+            publish(message);
+        }
+    }
+
+    /**
+     * Дождаться, пока всё принятое на этот момент будет записано.
+     */
+    public static void flush() {
+        long target = head.get();
+        while (tail < target && writer.isAlive()) {
+            LockSupport.parkNanos(IDLE_PARK_NS);
+        }
+        OUT.flush();
+    }
+
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Занять слот и опубликовать сообщение (String или Supplier).
+     */
+    private static void publish(Object message) {
+        long now = System.currentTimeMillis();
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+
+        int idx = (int) (seq & MASK);
+        messages[idx] = message;
+        times[idx] = now;
+        published.lazySet(idx, seq + 1);
+    }
+
+    // ==================== ФОНОВЫЙ ПОТОК ====================
+
+    private static void writeLoop() {
+        StringBuilder batch = new StringBuilder(64 * 1024);
+        long reportedDrops = 0;
+
+        while (true) {
+            long seq = tail;
+            int count = 0;
+
+            while (count < BATCH_SIZE) {
+                int idx = (int) (seq & MASK);
+                if (published.get(idx) != seq + 1) {
+                    break;
+                }
+                Object message = messages[idx];
+                long time = times[idx];
+                messages[idx] = null;
+                append(batch, time, message);
+                seq++;
+                count++;
+            }
+
+            if (count > 0) {
+                OUT.print(batch);
+                OUT.flush();
+                batch.setLength(0);
+                tail = seq;
+                continue;
+            }
+
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                OUT.println("[LOG] Буфер переполнен, потеряно сообщений: " + (drops - reportedDrops));
+                reportedDrops = drops;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NS);
+        }
+    }
+
+    private static void append(StringBuilder batch, long time, Object message) {
+        String text;
+        try {
+            if (message instanceof Supplier<?> supplier) {
+                text = String.valueOf(supplier.get());
+            } else {
+                text = String.valueOf(message);
+            }
+        } catch (RuntimeException e) {
+            text = "[LOG] Ошибка форматирования: " + e;
+        }
+        String timestamp = LocalTime.ofInstant(Instant.ofEpochMilli(time), ZONE).format(TIME_FORMAT);
+        batch.append('[').append(timestamp).append("] ").append(text).append(System.lineSeparator());
+    }
+}
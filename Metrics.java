@@ -0,0 +1,312 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Метрики ресторана.
+ *
+ * Гистограммы задержек по этапам заказа — отдельно по каждому блюду,
+ * для VIP и обычных клиентов и по всем вместе; глубина очередей;
+ * занятость поваров и официантов, штат кухни; заказы в работе и слоты OrderStore. Запись на горячем пути без блокировок
+ * и аллокаций: этапы считаются по отметкам System.nanoTime() в Order.
+ *
+ * Всё видно в JMX (jconsole, VisualVM) в домене "restaurant":
+ * restaurant:type=Latency,stage=...,group=... и restaurant:type=Restaurant.
+ */
+public final class Metrics {
+
+    private Metrics() {}
+
+    /**
+     * Этапы заказа.
+     */
+    public enum Stage {
+        QUEUE_WAIT,   // в очереди кухни
+        COOK,         // готовится
+        PICKUP_WAIT,  // готов, ждёт официанта
+        DELIVERY,     // официант несёт клиенту
+        END_TO_END    // от заказа до стола
+    }
+
+    private static final String DOMAIN = "restaurant";
+    private static final String ALL = "ALL";
+    private static final String VIP = "VIP";
+    private static final String REGULAR = "REGULAR";
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final Dish[] DISHES = Dish.values();
+
+    // [этап][блюдо], [этап][0 — обычные, 1 — VIP], [этап]
+    private static final LatencyHistogram[][] byDish = new LatencyHistogram[STAGES.length][DISHES.length];
+    private static final LatencyHistogram[][] byClass = new LatencyHistogram[STAGES.length][2];
+    private static final LatencyHistogram[] total = new LatencyHistogram[STAGES.length];
+
+    private static final LongAdder cookBusyNanos = new LongAdder();
+    private static final LongAdder waiterBusyNanos = new LongAdder();
+
+    private static volatile long openedAt = System.nanoTime();
+    private static volatile int waiters;
+    private static volatile IntSupplier activeCooks = () -> 0;
+    private static volatile LongSupplier cookShiftNanos = () -> 0;
+    private static volatile IntSupplier clientQueueDepth = () -> 0;
+    private static volatile IntSupplier kitchenQueueDepth = () -> 0;
+    private static volatile IntSupplier liveOrders = () -> 0;
+    private static volatile IntSupplier orderSlots = () -> 0;
+    private static boolean registered;
+
+    static {
+        for (Stage stage : STAGES) {
+            for (Dish dish : DISHES) {
+                byDish[stage.ordinal()][dish.ordinal()] = new LatencyHistogram();
+            }
+            byClass[stage.ordinal()][0] = new LatencyHistogram();
+            byClass[stage.ordinal()][1] = new LatencyHistogram();
+            total[stage.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Начать смену: сбросить гистограммы, запомнить штат и источники глубины очередей.
+     * Штат кухни может меняться (автомасштаб): cookCount — поваров сейчас,
+     * cookNanos — сколько повар-времени отработано с начала смены.
+     * Заказы — из OrderStore смены: сколько в работе и сколько слотов выделено.
+     * При первом вызове метрики регистрируются в JMX.
+     */
+    public static synchronized void open(IntSupplier cookCount, LongSupplier cookNanos, int waiterCount,
+                                         IntSupplier clientQueue, IntSupplier kitchenQueue, OrderStore orders) {
+        for (Stage stage : STAGES) {
+            for (LatencyHistogram histogram : byDish[stage.ordinal()]) {
+                histogram.reset();
+            }
+            byClass[stage.ordinal()][0].reset();
+            byClass[stage.ordinal()][1].reset();
+            total[stage.ordinal()].reset();
+        }
+        cookBusyNanos.reset();
+        waiterBusyNanos.reset();
+        activeCooks = cookCount;
+        cookShiftNanos = cookNanos;
+        waiters = waiterCount;
+        clientQueueDepth = clientQueue;
+        kitchenQueueDepth = kitchenQueue;
+        liveOrders = orders::getLiveCount;
+        orderSlots = orders::getCapacity;
+        openedAt = System.nanoTime();
+
+        if (!registered) {
+            registered = true;
+            register();
+        }
+    }
+
+    /**
+     * Закончить смену: очереди больше не опрашиваются, гистограммы остаются до следующей.
+     */
+    public static void close() {
+        clientQueueDepth = () -> 0;
+        kitchenQueueDepth = () -> 0;
+        activeCooks = () -> 0;
+    }
+
+    public static void record(Stage stage, Dish dish, boolean vip, long nanos) {
+        int s = stage.ordinal();
+        byDish[s][dish.ordinal()].record(nanos);
+        if (vip) {
+            byClass[s][1].record(nanos);
+        } else {
+            byClass[s][0].record(nanos);
+        }
+        total[s].record(nanos);
+    }
+
+    /**
+     * Повар приготовил заказ: ожидание в очереди и готовка.
+     */
+    public static void recordCooked(Order order) {
+        long queued = order.getCookStartedNanos() - order.getCreatedNanos();
+        long cooked = order.getReadyNanos() - order.getCookStartedNanos();
+        record(Stage.QUEUE_WAIT, order.getDish(), order.isVip(), queued);
+        record(Stage.COOK, order.getDish(), order.isVip(), cooked);
+    }
+
+    /**
+     * Повар был занят busyNanos (одна партия — один вызов).
+     */
+    public static void cookBusy(long busyNanos) {
+        cookBusyNanos.add(busyNanos);
+    }
+
+    /**
+     * Официант донёс заказ до стола.
+     */
+    public static void recordDelivered(Order order) {
+        long now = System.nanoTime();
+        record(Stage.PICKUP_WAIT, order.getDish(), order.isVip(), order.getPickedUpNanos() - order.getReadyNanos());
+        record(Stage.DELIVERY, order.getDish(), order.isVip(), now - order.getPickedUpNanos());
+        record(Stage.END_TO_END, order.getDish(), order.isVip(), now - order.getCreatedNanos());
+    }
+
+    /**
+     * Официант закончил работу с клиентом (busyNanos — сколько был занят).
+     */
+    public static void waiterBusy(long busyNanos) {
+        waiterBusyNanos.add(busyNanos);
+    }
+
+    public static LatencyHistogram histogram(Stage stage) {
+        return total[stage.ordinal()];
+    }
+
+    public static LatencyHistogram histogram(Stage stage, Dish dish) {
+        return byDish[stage.ordinal()][dish.ordinal()];
+    }
+
+    public static LatencyHistogram histogram(Stage stage, boolean vip) {
+        if (vip) {
+            return byClass[stage.ordinal()][1];
+        }
+        return byClass[stage.ordinal()][0];
+    }
+
+    /**
+     * Доля отработанного поварами времени, которую они были заняты (0..1).
+     */
+    public static double getCookUtilization() {
+        long staffed = cookShiftNanos.getAsLong();
+        if (staffed <= 0) {
+            return 0;
+        }
+        return Math.min(1.0, (double) cookBusyNanos.sum() / staffed);
+    }
+
+    /**
+     * Отработано повар-минут с начала смены.
+     */
+    public static double getCookMinutes() {
+        return cookShiftNanos.getAsLong() / 60e9;
+    }
+
+    /**
+     * Доля времени смены, которую официанты были заняты клиентами (0..1).
+     * У async-официанта со столами внахлёст считается время, пока есть хоть один клиент.
+     */
+    public static double getWaiterUtilization() {
+        return utilization(waiterBusyNanos.sum(), waiters);
+    }
+
+    private static double utilization(long busyNanos, int workers) {
+        long elapsed = System.nanoTime() - openedAt;
+        if (workers == 0 || elapsed <= 0) {
+            return 0;
+        }
+        return Math.min(1.0, (double) busyNanos / elapsed / workers);
+    }
+
+    /**
+     * Короткая сводка по сквозной задержке для лога.
+     */
+    public static String summary() {
+        LatencyHistogram e2e = histogram(Stage.END_TO_END);
+        return "Заказов: " + e2e.getCount()
+            + " | задержка p50/p99/p999/макс: " + e2e.getP50Micros() / 1000 + "/" + e2e.getP99Micros() / 1000
+            + "/" + e2e.getP999Micros() / 1000 + "/" + e2e.getMaxMicros() / 1000 + " мс"
+            + " | занятость поваров: " + Math.round(getCookUtilization() * 100) + "%"
+            + " (" + Math.round(getCookMinutes() * 10) / 10.0 + " повар-мин)"
+            + ", официантов: " + Math.round(getWaiterUtilization() * 100) + "%"
+            + " | заказов в работе: " + liveOrders.getAsInt() + " (слотов: " + orderSlots.getAsInt() + ")";
+    }
+
+    // ==================== JMX ====================
+
+    private static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Gauges(), new ObjectName(DOMAIN + ":type=Restaurant"));
+            for (Stage stage : STAGES) {
+                registerLatency(server, stage, ALL, histogram(stage));
+                registerLatency(server, stage, REGULAR, histogram(stage, false));
+                registerLatency(server, stage, VIP, histogram(stage, true));
+                for (Dish dish : DISHES) {
+                    registerLatency(server, stage, dish.name(), histogram(stage, dish));
+                }
+            }
+        } catch (JMException e) {
+            Log.warn("[МЕТРИКИ] Не удалось зарегистрировать в JMX: " + e.getMessage());
+        }
+    }
+
+    private static void registerLatency(MBeanServer server, Stage stage, String group,
+                                        LatencyHistogram histogram) throws JMException {
+        ObjectName name = new ObjectName(DOMAIN + ":type=Latency,stage=" + stage + ",group=" + group);
+        server.registerMBean(histogram, name);
+    }
+
+    /**
+     * Текущее состояние ресторана в JMX.
+     */
+    public interface RestaurantMXBean {
+        int getClientQueueDepth();
+
+        int getKitchenQueueDepth();
+
+        int getActiveCooks();
+
+        double getCookMinutes();
+
+        double getCookUtilization();
+
+        double getWaiterUtilization();
+
+        /** Заказы, чьи слоты ещё не вернулись в хранилище; после смены — утечка. */
+        int getLiveOrders();
+
+        /** Выделено слотов заказов — пик одновременных заказов за смену. */
+        int getOrderSlots();
+    }
+
+    private static final class Gauges implements RestaurantMXBean {
+        @Override
+        public int getClientQueueDepth() {
+            return clientQueueDepth.getAsInt();
+        }
+
+        @Override
+        public int getKitchenQueueDepth() {
+            return kitchenQueueDepth.getAsInt();
+        }
+
+        @Override
+        public int getActiveCooks() {
+            return activeCooks.getAsInt();
+        }
+
+        @Override
+        public double getCookMinutes() {
+            return Metrics.getCookMinutes();
+        }
+
+        @Override
+        public double getCookUtilization() {
+            return Metrics.getCookUtilization();
+        }
+
+        @Override
+        public double getWaiterUtilization() {
+            return Metrics.getWaiterUtilization();
+        }
+
+        @Override
+        public int getLiveOrders() {
+            return liveOrders.getAsInt();
+        }
+
+        @Override
+        public int getOrderSlots() {
+            return orderSlots.getAsInt();
+        }
+    }
+}
@@ -1,64 +1,304 @@
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Заказ клиента.
- * Использует CompletableFuture для уведомления официанта о готовности.
+ * Заказ клиента — вид на слот OrderStore.
+ *
+ * Сам объект полей не хранит: всё читается из массивов страницы хранилища,
+ * а вид переиспользуется вместе со слотом. Поэтому ссылку на заказ нельзя
+ * держать дольше, чем его держат кухня и официант: после releaseKitchen
+ * и releaseWaiter слот может достаться следующему заказу.
+ *
+ * Готовность — слово состояния слота, без CompletableFuture: повар отмечает
+ * done(), кухня — expire(), официант — timeOut(); выигрывает первый,
+ * и об этом узнаёт слушатель заказа (OrderStore.Listener) или ждущий поток (await).
  */
-public class Order {
-    
+public final class Order {
+
     private static final AtomicInteger COUNTER = new AtomicInteger(0);
+    private static final Dish[] DISHES = Dish.values();
+
+    private final OrderStore store;
+    final OrderStore.Page page;
+    final int index;
+    private final int slot;
 
-    private final int id;
-    private final int clientId;
-    private final int waiterId;
-    private final Dish dish;
-    private final boolean vip;
-    private final long createdAt;
-    private final CompletableFuture<Order> ready = new CompletableFuture<>();
+    Order(OrderStore store, OrderStore.Page page, int index, int slot) {
+        this.store = store;
+        this.page = page;
+        this.index = index;
+        this.slot = slot;
+    }
 
-    public Order(int clientId, Dish dish, int waiterId, boolean vip) {
-        this.id = COUNTER.incrementAndGet();
-        this.clientId = clientId;
-        this.dish = dish;
-        this.waiterId = waiterId;
-        this.vip = vip;
-        this.createdAt = System.currentTimeMillis();
+    static int nextId() {
+        return COUNTER.incrementAndGet();
+    }
+
+    public int getId() {
+        return page.ids[index];
+    }
+
+    /**
+     * Номер слота в хранилище (в отличие от id, повторяется).
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getWaiterId() {
+        return page.waiters[index];
     }
 
     public int getClientId() {
-        return clientId;
+        return page.clients[index];
+    }
+
+    /**
+     * Место клиента в зале (сквозной индекс HallLayout), назначенное при посадке;
+     * -1 — без места.
+     */
+    public int getSeat() {
+        return page.seats[index];
     }
 
     public Dish getDish() {
-        return dish;
+        return DISHES[page.dishes[index]];
     }
 
-    public boolean isVip() {
-        return vip;
+    /**
+     * Время готовки блюда без VIP-множителя (см. KitchenPolicy.cookTimeFor).
+     */
+    public int getCookTime() {
+        return page.cookTimes[index];
     }
 
-    public CompletableFuture<Order> getReady() {
-        return ready;
+    public boolean isVip() {
+        return page.vip[index];
     }
 
+    // ==================== ГОТОВНОСТЬ ====================
+
     /**
      * Помечает заказ как готовый.
      * Вызывается поваром после приготовления.
+     *
+     * @return false, если заказ уже завершён (официант не дождался)
+     */
+    public boolean done() {
+        // Отметка пишется до CAS, чтобы её опубликовал сам переход в READY:
+        // официант, увидевший isReady(), не прочтёт 0. Проигравший возвращает прежнюю
+        long previous = page.readyNanos[index];
+        page.readyNanos[index] = System.nanoTime();
+        if (complete(OrderStore.READY)) {
+            return true;
+        }
+        page.readyNanos[index] = previous;
+        return false;
+    }
+
+    /**
+     * Заказ уже не успеть к сроку — кухня снимает его, официант получает отказ.
+     */
+    public boolean expire() {
+        return complete(OrderStore.EXPIRED);
+    }
+
+    /**
+     * Официант больше не ждёт — кухня заказ не начнёт.
+     */
+    public boolean timeOut() {
+        return complete(OrderStore.TIMED_OUT);
+    }
+
+    /**
+     * Заказ завершён: готов, снят или не дождался.
+     */
+    public boolean isDone() {
+        return phase() != OrderStore.PENDING;
+    }
+
+    /**
+     * Заказ готов (а не снят и не брошен по таймауту).
+     */
+    public boolean isReady() {
+        return phase() == OrderStore.READY;
+    }
+
+    private int phase() {
+        return page.states.get(index) & OrderStore.PHASE_MASK;
+    }
+
+    private boolean complete(int phase) {
+        while (true) {
+            int state = page.states.get(index);
+            if ((state & OrderStore.PHASE_MASK) != OrderStore.PENDING) {
+                return false;
+            }
+            if (page.states.compareAndSet(index, state, state | phase)) {
+                notifyListener(page.listeners.getAndSet(index, null));
+                return true;
+            }
+        }
+    }
+
+    private void notifyListener(Object target) {
+        if (target instanceof OrderStore.Listener listener) {
+            listener.orderCompleted(this);
+        } else if (target instanceof Thread thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Сообщить listener о завершении заказа; если заказ уже завершён — сразу.
+     * Слушатель у заказа один.
+     */
+    public void onComplete(OrderStore.Listener listener) {
+        page.listeners.set(index, listener);
+        if (isDone() && page.listeners.compareAndSet(index, listener, null)) {
+            listener.orderCompleted(this);
+        }
+    }
+
+    /**
+     * Ждать завершения не дольше timeoutNanos; не дождавшись — timeOut().
+     *
+     * @return true, если заказ готов
+     */
+    public boolean await(long timeoutNanos) {
+        if (!isDone()) {
+            Thread current = Thread.currentThread();
+            page.listeners.set(index, current);
+            long deadline = System.nanoTime() + timeoutNanos;
+            long remaining = timeoutNanos;
+            while (!isDone() && remaining > 0 && !current.isInterrupted()) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            page.listeners.compareAndSet(index, current, null);
+            timeOut();
+        }
+        return isReady();
+    }
+
+    /**
+     * Завершение заказа как CompletableFuture — для цепочек async-официанта.
+     * Занимает слушателя заказа; не готовый заказ завершает будущее TimeoutException.
+     */
+    public CompletableFuture<Order> toFuture() {
+        CompletableFuture<Order> future = new CompletableFuture<>();
+        onComplete(order -> {
+            if (order.isReady()) {
+                future.complete(order);
+            } else {
+                future.completeExceptionally(new TimeoutException("Не успеть к сроку: " + order));
+            }
+        });
+        return future;
+    }
+
+    // ==================== ВЛАДЕЛЬЦЫ ====================
+
+    /**
+     * Кухня больше не держит заказ: приготовила, сняла или не приняла.
      */
-    public void done() {
-        ready.complete(this);
+    public void releaseKitchen() {
+        release(OrderStore.HELD_BY_KITCHEN);
+    }
+
+    /**
+     * Официант больше не держит заказ: доставил или сообщил об отказе.
+     */
+    public void releaseWaiter() {
+        release(OrderStore.HELD_BY_WAITER);
+    }
+
+    private void release(int holder) {
+        while (true) {
+            int state = page.states.get(index);
+            if ((state & holder) == 0) {
+                return;
+            }
+            int updated = state & ~holder;
+            if (page.states.compareAndSet(index, state, updated)) {
+                if ((updated & OrderStore.HELD_MASK) == 0) {
+                    store.free(this);
+                }
+                return;
+            }
+        }
+    }
+
+    // ==================== СРОКИ И ОТМЕТКИ ====================
+
+    /**
+     * Крайний срок доставки в тех же часах, что и время создания.
+     * Задаётся кухней при приёме заказа.
+     */
+    public long getDeadline() {
+        return page.deadlines[index];
+    }
+
+    public void setDeadline(long deadline) {
+        page.deadlines[index] = deadline;
+    }
+
+    /**
+     * Повар взял заказ в работу.
+     */
+    public void markCookStarted() {
+        page.cookStartedNanos[index] = System.nanoTime();
+    }
+
+    /**
+     * Официант забрал готовый заказ с кухни.
+     */
+    public void markPickedUp() {
+        page.pickedUpNanos[index] = System.nanoTime();
+    }
+
+    public long getCreatedNanos() {
+        return page.createdNanos[index];
+    }
+
+    public long getCookStartedNanos() {
+        return page.cookStartedNanos[index];
+    }
+
+    public long getReadyNanos() {
+        return page.readyNanos[index];
+    }
+
+    public long getPickedUpNanos() {
+        return page.pickedUpNanos[index];
     }
 
     /**
      * Время ожидания заказа в миллисекундах.
      */
     public long getWaitTime() {
-        return System.currentTimeMillis() - createdAt;
+        return getWaitTime(System.currentTimeMillis());
+    }
+
+    /**
+     * Время ожидания заказа относительно заданного момента.
+     */
+    public long getWaitTime(long now) {
+        return now - page.createdAt[index];
     }
 
     @Override
     public String toString() {
+        return describe(getId(), isVip(), getDish(), getClientId());
+    }
+
+    /**
+     * Описание заказа по значениям полей — для сообщений лога, которые
+     * собираются позже, когда слот уже может принадлежать другому заказу.
+     */
+    public static String describe(int id, boolean vip, Dish dish, int clientId) {
         String vipMark;
         if (vip) {
             vipMark = " [VIP]";
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Хранилище заказов: поля всех заказов лежат в примитивных массивах,
+ * по массиву на поле (блюдо, клиент, место, официант, VIP, отметки времени, состояние).
+ *
+ * Order — только вид на свой слот: объект создаётся один раз на слот
+ * и переиспользуется вместе с ним. Слот возвращается в хранилище, когда заказ
+ * отпустили и кухня, и официант (Order.releaseKitchen / releaseWaiter), поэтому
+ * слотов столько, сколько заказов одновременно в работе, а не сколько их было
+ * за смену, — миллион заказов не создаёт ни одного нового объекта.
+ *
+ * Массивы разбиты на страницы по PAGE_SIZE слотов: рост не переносит уже
+ * выданные заказы, и вид читает поля своей страницы напрямую.
+ * Выдача и возврат слотов — под монитором хранилища, состояние заказа
+ * меняется CAS-ом, так что одно хранилище делят официанты и повара.
+ */
+public final class OrderStore {
+
+    /**
+     * Слушатель завершения заказа: готов, снят кухней или не дождался официанта.
+     * У заказа один слушатель; вызывается в потоке, завершившем заказ.
+     */
+    public interface Listener {
+        void orderCompleted(Order order);
+    }
+
+    static final int PAGE_BITS = 10;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    // Слово состояния: этап заказа в младших битах и кто его ещё держит
+    static final int PENDING = 0;
+    static final int READY = 1;
+    static final int EXPIRED = 2;
+    static final int TIMED_OUT = 3;
+    static final int PHASE_MASK = 3;
+    static final int HELD_BY_WAITER = 1 << 2;
+    static final int HELD_BY_KITCHEN = 1 << 3;
+    static final int HELD_MASK = HELD_BY_WAITER | HELD_BY_KITCHEN;
+
+    private Page[] pages = new Page[0];
+    private int fresh;
+    private int[] free = new int[PAGE_SIZE];
+    private int freeCount;
+
+    /**
+     * Заказ клиента, которого официант waiterId посадил на место seat, принятый в момент createdAt.
+     */
+    public Order create(Waiter.ClientRequest request, int seat, int waiterId, long createdAt) {
+        return create(request.clientId(), request.dish(), request.cookTime(), seat, waiterId, request.vip(), createdAt);
+    }
+
+    /**
+     * Заказ со средним временем готовки блюда, без места в зале.
+     */
+    public Order create(int clientId, Dish dish, int waiterId, boolean vip) {
+        return create(clientId, dish, (int) Math.round(dish.getMeanTime()), -1, waiterId, vip, System.currentTimeMillis());
+    }
+
+    private Order create(int clientId, Dish dish, int cookTime, int seat, int waiterId, boolean vip, long createdAt) {
+        Order order = acquire();
+        Page page = order.page;
+        int i = order.index;
+        page.ids[i] = Order.nextId();
+        page.clients[i] = clientId;
+        page.seats[i] = seat;
+        page.waiters[i] = waiterId;
+        page.dishes[i] = (byte) dish.ordinal();
+        page.cookTimes[i] = cookTime;
+        page.vip[i] = vip;
+        page.createdAt[i] = createdAt;
+        page.deadlines[i] = 0;
+        page.createdNanos[i] = System.nanoTime();
+        page.cookStartedNanos[i] = 0;
+        page.readyNanos[i] = 0;
+        page.pickedUpNanos[i] = 0;
+        page.states.set(i, PENDING | HELD_MASK);
+        return order;
+    }
+
+    private synchronized Order acquire() {
+        if (freeCount > 0) {
+            int slot = free[--freeCount];
+            return pages[slot >>> PAGE_BITS].views[slot & (PAGE_SIZE - 1)];
+        }
+        int slot = fresh++;
+        int pageIndex = slot >>> PAGE_BITS;
+        if (pageIndex == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length + 1);
+            pages[pageIndex] = new Page(this, pageIndex);
+        }
+        return pages[pageIndex].views[slot & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Вернуть слот: заказ больше никто не держит.
+     */
+    synchronized void free(Order order) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = order.getSlot();
+    }
+
+    /**
+     * Сколько заказов сейчас в работе (слоты, не вернувшиеся в хранилище).
+     */
+    public synchronized int getLiveCount() {
+        return fresh - freeCount;
+    }
+
+    /**
+     * Сколько слотов выделено за всё время — пик одновременных заказов.
+     */
+    public synchronized int getCapacity() {
+        return fresh;
+    }
+
+    /**
+     * Страница хранилища: PAGE_SIZE слотов, у каждого поля свой массив.
+     */
+    static final class Page {
+        final int[] ids = new int[PAGE_SIZE];
+        final int[] clients = new int[PAGE_SIZE];
+        final int[] seats = new int[PAGE_SIZE];
+        final int[] waiters = new int[PAGE_SIZE];
+        final int[] cookTimes = new int[PAGE_SIZE];
+        final byte[] dishes = new byte[PAGE_SIZE];
+        final boolean[] vip = new boolean[PAGE_SIZE];
+        final long[] createdAt = new long[PAGE_SIZE];
+        final long[] deadlines = new long[PAGE_SIZE];
+        final long[] createdNanos = new long[PAGE_SIZE];
+        final long[] cookStartedNanos = new long[PAGE_SIZE];
+        final long[] readyNanos = new long[PAGE_SIZE];
+        final long[] pickedUpNanos = new long[PAGE_SIZE];
+        final AtomicIntegerArray states = new AtomicIntegerArray(PAGE_SIZE);
+        // Слушатель (Listener) или ждущий поток (Thread)
+        final AtomicReferenceArray<Object> listeners = new AtomicReferenceArray<>(PAGE_SIZE);
+        final Order[] views = new Order[PAGE_SIZE];
+
+        Page(OrderStore store, int pageIndex) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                views[i] = new Order(store, this, i, (pageIndex << PAGE_BITS) | i);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import java.awt.Color;
+
+/**
+ * Цвета окна. Отдельно от Constants, чтобы модель и запуск без GUI не тянули AWT.
+ */
+public final class Palette {
+
+    private Palette() {}
+
+    public static final Color BACKGROUND = new Color(173, 216, 230);
+    public static final Color TABLE = new Color(139, 90, 43);
+    public static final Color TABLE_VIP = new Color(180, 120, 60);
+    public static final Color CHAIR = new Color(160, 82, 45);
+    public static final Color KITCHEN_BG = new Color(70, 70, 75);
+    public static final Color COUNTER = new Color(60, 60, 65);
+    public static final Color CONTROL_PANEL = new Color(45, 45, 50);
+    public static final Color BTN_START = new Color(76, 175, 80);
+    public static final Color BTN_STOP = new Color(244, 67, 54);
+    
+    public static final Color CLIENT_READY = new Color(100, 200, 100);
+    public static final Color CLIENT_WAITING = new Color(255, 200, 100);
+    public static final Color CLIENT_VIP = new Color(120, 170, 255);
+    public static final Color SKIN = new Color(255, 220, 185);
+    public static final Color HAIR = new Color(80, 60, 40);
+    public static final Color VIP_CROWN = new Color(255, 215, 0);
+
+    public static final Color KITCHEN_FLOOR = new Color(90, 90, 95);
+    public static final Color STOVE = new Color(50, 50, 55);
+    public static final Color BURNER = new Color(40, 40, 45);
+    public static final Color TABLE_SHADOW = new Color(0, 0, 0, 30);
+    public static final Color WAITER_SHADOW = new Color(0, 0, 0, 40);
+    public static final Color WAITER_HAIR = new Color(60, 40, 20);
+    public static final Color TRAY = new Color(100, 100, 100);
+    public static final Color TRAY_FOOD = new Color(200, 100, 70);
+    public static final Color PLATE_FOOD = new Color(180, 80, 60);
+    public static final Color STATUS_TEXT = new Color(80, 80, 80);
+}
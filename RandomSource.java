@@ -0,0 +1,89 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Единый источник случайности симуляции.
+ *
+ * Каждой части модели — свой поток (stream), выведенный из общего зерна:
+ * добавление нового потока или лишний вызов в одном не сдвигают другие.
+ * С одним и тем же зерном headless-смена повторяет те же приходы, блюда
+ * и времена готовки — так изменения планировщика сравниваются на одной нагрузке.
+ *
+ * Зерно задаётся явно или свойством -Drestaurant.seed=N; без него — случайное.
+ * Поток SplittableRandom не потокобезопасен: у каждого компонента свой.
+ * Компонентам, которых зовут из нескольких потоков, — hash(): без состояния.
+ */
+public final class RandomSource {
+
+    /**
+     * Потоки случайности по частям модели.
+     */
+    public enum Stream {
+        ARRIVALS,    // паузы между клиентами, размер групп, VIP-партии
+        DISHES,      // выбор блюда
+        COOK_TIMES,  // время готовки
+        TABLES,      // стартовое место поиска стола
+        BALANCER     // выбор шарда
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    public RandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Источник по свойству restaurant.seed, а без него — со случайным зерном.
+     */
+    public static RandomSource create() {
+        String property = System.getProperty("restaurant.seed");
+        if (property != null) {
+            return new RandomSource(Long.parseLong(property.trim()));
+        }
+        return new RandomSource(ThreadLocalRandom.current().nextLong());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Поток части модели.
+     */
+    public SplittableRandom stream(Stream stream) {
+        return stream(stream, 0);
+    }
+
+    /**
+     * Поток части модели с номером (например, генератор одного из шардов).
+     */
+    public SplittableRandom stream(Stream stream, int index) {
+        return new SplittableRandom(mix(seed + key(stream, index) * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Случайное число, определяемое только зерном, потоком и ключом.
+     * Без состояния — можно звать из любых потоков.
+     */
+    public long hash(Stream stream, long key) {
+        return mix(mix(seed + key(stream, 0) * GOLDEN_GAMMA) + key * GOLDEN_GAMMA);
+    }
+
+    private static long key(Stream stream, int index) {
+        return ((long) stream.ordinal() << 32 | index) + 1;
+    }
+
+    // Финализатор SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return "зерно " + seed;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * Форма частоты приходов за повторяющийся период (например, день).
+ *
+ * Кусочно-линейная: в точках at (доли периода от 0 до 1) множитель равен
+ * multiplier, между ними — по прямой. Абсолютная частота задаётся процессом
+ * прихода (ArrivalProcess.poisson), кривая лишь распределяет её по периоду:
+ * в среднем за период множитель считается равным 1.
+ */
+public final class RateCurve {
+
+    private final long periodMs;
+    private final double[] at;
+    private final double[] multiplier;
+    private final double mean;
+    private final double max;
+
+    public RateCurve(long periodMs, double[] at, double[] multiplier) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("Период кривой должен быть положительным: " + periodMs);
+        }
+        if (at.length < 2 || at.length != multiplier.length || at[0] != 0 || at[at.length - 1] != 1) {
+            throw new IllegalArgumentException("Точки кривой должны идти от 0 до 1, по множителю на точку");
+        }
+        double area = 0;
+        double max = 0;
+        for (int i = 0; i < at.length; i++) {
+            if (multiplier[i] < 0) {
+                throw new IllegalArgumentException("Отрицательный множитель: " + multiplier[i]);
+            }
+            if (i > 0) {
+                if (at[i] <= at[i - 1]) {
+                    throw new IllegalArgumentException("Точки кривой должны возрастать: " + Arrays.toString(at));
+                }
+                area += (at[i] - at[i - 1]) * (multiplier[i] + multiplier[i - 1]) / 2;
+            }
+            max = Math.max(max, multiplier[i]);
+        }
+        if (max == 0) {
+            throw new IllegalArgumentException("Кривая без приходов");
+        }
+        this.periodMs = periodMs;
+        this.at = at.clone();
+        this.multiplier = multiplier.clone();
+        this.mean = area;
+        this.max = max;
+    }
+
+    /**
+     * День ресторана длиной dayMs: тихое утро, обеденный пик,
+     * затишье после обеда и пик выше — ужин.
+     */
+    public static RateCurve lunchAndDinner(long dayMs) {
+        return new RateCurve(dayMs,
+            new double[] {0, 0.2, 0.3, 0.4, 0.6, 0.75, 0.9, 1},
+            new double[] {0.2, 0.4, 2.5, 0.6, 0.6, 3.0, 0.6, 0.2});
+    }
+
+    /**
+     * Множитель частоты в момент timeMs от открытия (в среднем за период — 1).
+     */
+    public double at(double timeMs) {
+        double phase = (timeMs % periodMs) / periodMs;
+        int i = Arrays.binarySearch(at, phase);
+        if (i >= 0) {
+            return multiplier[i] / mean;
+        }
+        int right = -i - 1;
+        int left = right - 1;
+        double share = (phase - at[left]) / (at[right] - at[left]);
+        return (multiplier[left] + (multiplier[right] - multiplier[left]) * share) / mean;
+    }
+
+    /**
+     * Наибольший множитель за период — для прореживания в ArrivalProcess.
+     */
+    public double getPeak() {
+        return max / mean;
+    }
+
+    public long getPeriodMs() {
+        return periodMs;
+    }
+
+    @Override
+    public String toString() {
+        return "кривая " + periodMs / 1000 + " с, пик ×" + String.format("%.2f", getPeak());
+    }
+}
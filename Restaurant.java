@@ -1,7 +1,6 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.*;
 
 /**
  * Ресторан — координирует работу всех компонентов.
@@ -15,14 +14,31 @@ public class Restaurant {
     private final int maxClients;
 
     private Kitchen kitchen;
+    private OrderStore orders;
     private ClientGenerator clientGenerator;
     private BlockingDeque<Waiter.ClientRequest> clientQueue;
     
     private final List<Waiter> waiters = new ArrayList<>();
     private final List<Thread> waiterThreads = new ArrayList<>();
+    private final List<AsyncWaiter> asyncWaiters = new ArrayList<>();
+    private final List<CompletableFuture<Void>> asyncShifts = new ArrayList<>();
+    private ExecutorService carrierPool;
+    private ScheduledThreadPoolExecutor waiterTimer;
+    private AdmissionController admission;
     
     private volatile boolean running = false;
-    private Waiter.WaiterCallback callback;
+    private Waiter.WaiterListener listener;
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private int maxBatch = 1;
+    private int minCooks;
+    private int maxCooks;
+    private RandomSource random = RandomSource.create();
+    private double walkScale = TravelModel.scaleFromProperty();
+    private TravelModel travel;
+    private int trayCapacity = 1;
+    private ArrivalProcess arrivals = ArrivalProcess.fromProperty();
+    private int generatorThreads = 1;
+    private Waiter.Seating seating;
 
     public Restaurant(int cooks, int waiters, int kitchenQueueSize, int clientQueueSize, int maxClients) {
         this.cookCount = cooks;
@@ -32,8 +48,77 @@ public class Restaurant {
         this.maxClients = maxClients;
     }
 
-    public void setCallback(Waiter.WaiterCallback callback) {
-        this.callback = callback;
+    /**
+     * Слушатель переходов официантов. Для GUI — WaiterEventChannel,
+     * чтобы события разбирались пачками в потоке аниматора.
+     */
+    public void setListener(Waiter.WaiterListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Режим потоков официантов и поваров. Задаётся до open().
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Готовка партиями до maxBatch заказов одного блюда (1 — без партий). Задаётся до open().
+     */
+    public void setBatching(int maxBatch) {
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Автомасштаб кухни: от minCooks до maxCooks поваров по загрузке очереди,
+     * начиная с cooks из конструктора. Задаётся до open().
+     */
+    public void setAutoscale(int minCooks, int maxCooks) {
+        this.minCooks = minCooks;
+        this.maxCooks = maxCooks;
+    }
+
+    /**
+     * Источник случайности генератора клиентов. Задаётся до open().
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * Переходы официантов по времени из TravelModel с множителем scale
+     * (0 — ждать сигнала аниматора). Без слушателя-окна переходы идут
+     * по времени всегда, иначе каждый ждал бы таймаута. Задаётся до open().
+     */
+    public void setWalkScale(double scale) {
+        this.walkScale = scale;
+    }
+
+    /**
+     * Поднос на trayCapacity тарелок: готовые заказы ложатся на общую стойку,
+     * и официант разносит несколько за выход (1 — каждый несёт свой заказ).
+     * Только для официантов с потоками. Задаётся до open().
+     */
+    public void setTrayCapacity(int trayCapacity) {
+        this.trayCapacity = Math.max(1, trayCapacity);
+    }
+
+    /**
+     * Кто выбирает места клиентам (в окне — TableManager). По умолчанию —
+     * HallLayout.seatFor: место по номеру клиента. Задаётся до open().
+     */
+    public void setSeating(Waiter.Seating seating) {
+        this.seating = seating;
+    }
+
+    /**
+     * Процесс прихода клиентов (по умолчанию — из свойства restaurant.arrivals)
+     * и число потоков генератора, как ClientGenerator.setThreads. Задаётся до open().
+     */
+    public void setArrivals(ArrivalProcess arrivals, int generatorThreads) {
+        this.arrivals = arrivals;
+        this.generatorThreads = Math.max(1, generatorThreads);
     }
 
     public Waiter getWaiter(int id) {
@@ -45,6 +130,25 @@ public class Restaurant {
         return null;
     }
 
+    /**
+     * Официант дошёл до цели (вызывается аниматором GUI).
+     * При переходах по времени сигнал не нужен и ни на что не влияет.
+     */
+    public void notifyArrived(int waiterId) {
+        for (Waiter w : waiters) {
+            if (w.getId() == waiterId) {
+                w.notifyArrived();
+                return;
+            }
+        }
+        for (AsyncWaiter w : asyncWaiters) {
+            if (w.getId() == waiterId) {
+                w.notifyArrived();
+                return;
+            }
+        }
+    }
+
     public void open() {
         if (running) {
             return;
@@ -53,44 +157,147 @@ public class Restaurant {
         Order.reset();
         ClientGenerator.reset();
 
-        Constants.log("========== РЕСТОРАН ОТКРЫТ ==========");
-        Constants.log("Поваров: " + cookCount + ", Официантов: " + waiterCount + ", Клиентов: " + maxClients);
+        Log.info("========== РЕСТОРАН ОТКРЫТ ==========");
+        Log.info(() -> "Поваров: " + cookCount + ", Официантов: " + waiterCount + ", Клиентов: " + maxClients
+            + ", случайность: " + random);
+        if (executionMode.effective() != executionMode) {
+            Log.warn("Виртуальные потоки недоступны в этой JVM — используются обычные");
+        }
+
+        EventJournal.openFromProperty();
 
         // Создаём очередь клиентов
         clientQueue = new LinkedBlockingDeque<>(clientQueueSize);
 
         // Запускаем кухню
-        kitchen = new Kitchen(cookCount, kitchenQueueSize);
+        orders = new OrderStore();
+        kitchen = new Kitchen(cookCount, kitchenQueueSize, executionMode);
+        kitchen.setBatching(maxBatch, Constants.BATCH_MAX_DELAY_MS);
+        if (maxCooks > 0) {
+            kitchen.setAutoscale(minCooks, maxCooks);
+        }
         kitchen.start();
 
+        // Переходы: по сигналу аниматора или по времени
+        double scale = walkScale;
+        if (scale <= 0 && listener == null) {
+            scale = 1.0;
+        }
+        HallLayout layout = HallLayout.standard();
+        Waiter.Seating clientSeating = seating;
+        if (clientSeating == null) {
+            clientSeating = (clientId, vip, waiterId) -> layout.seatFor(clientId, vip);
+        }
+        travel = null;
+        long walkEstimate = Constants.ADMISSION_WALK_MS;
+        if (scale > 0) {
+            travel = new TravelModel(layout, scale);
+            walkEstimate = travel.averageLegMs();
+            double walkScaleUsed = scale;
+            Log.info(() -> "Переходы официантов по времени, множитель " + walkScaleUsed);
+        }
+        if (executionMode == ExecutionMode.ASYNC || travel != null) {
+            waiterTimer = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "Таймер официантов"));
+            waiterTimer.setRemoveOnCancelPolicy(true);
+        }
+
+        admission = new AdmissionController(kitchenQueueSize, walkEstimate);
+        Metrics.open(kitchen::getCookCount, kitchen::getCookNanos, waiterCount,
+            clientQueue::size, kitchen::getQueueSize, orders);
+
+        DeliveryPass pass = null;
+        if (trayCapacity > 1 && executionMode == ExecutionMode.ASYNC) {
+            Log.warn("Поднос только для официантов с потоками — async-официанты носят по заказу");
+        } else if (trayCapacity > 1) {
+            pass = new DeliveryPass(layout, trayCapacity);
+            Log.info("Разнос с подноса: до " + trayCapacity + " тарелок за выход");
+        }
+
         // Запускаем официантов
-        for (int i = 1; i <= waiterCount; i++) {
-            Waiter waiter = new Waiter(i, clientQueue, kitchen);
-            if (callback != null) {
-                waiter.setCallback(callback);
+        if (executionMode == ExecutionMode.ASYNC) {
+            startAsyncWaiters(clientSeating);
+        }
+        for (int i = 1; i <= waiterCount && executionMode != ExecutionMode.ASYNC; i++) {
+            Waiter waiter = new Waiter(i, clientQueue, kitchen, orders);
+            waiter.setAdmission(admission);
+            waiter.setSeating(clientSeating);
+            if (listener != null) {
+                waiter.setListener(listener);
+            }
+            if (travel != null) {
+                waiter.setTravel(travel.walker(i), waiterTimer);
+            }
+            if (pass != null) {
+                waiter.setDeliveryPass(pass);
             }
             waiters.add(waiter);
             
-            Thread thread = new Thread(waiter);
+            Thread thread = executionMode.newThread("Официант-" + i, waiter);
             waiterThreads.add(thread);
             thread.start();
         }
 
         // Запускаем генератор клиентов
         clientGenerator = new ClientGenerator(clientQueue, maxClients);
+        clientGenerator.setRandom(random, 0);
+        clientGenerator.setArrivalProcess(arrivals);
+        clientGenerator.setThreads(generatorThreads);
         clientGenerator.start();
         
         running = true;
     }
 
+    /**
+     * Async-официанты: без своих потоков, на общем пуле-носителе и таймере.
+     */
+    private void startAsyncWaiters(Waiter.Seating clientSeating) {
+        carrierPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        for (int i = 1; i <= waiterCount; i++) {
+            AsyncWaiter waiter = new AsyncWaiter(i, clientQueue, kitchen, orders, carrierPool, waiterTimer,
+                Constants.WAITER_MAX_TABLES);
+            waiter.setAdmission(admission);
+            waiter.setSeating(clientSeating);
+            if (listener != null) {
+                waiter.setListener(listener);
+            }
+            if (travel != null) {
+                waiter.setTravel(travel.walker(i));
+            }
+            asyncWaiters.add(waiter);
+        }
+        for (AsyncWaiter waiter : asyncWaiters) {
+            asyncShifts.add(waiter.start());
+        }
+    }
+
+    private void stopAsyncWaiters() {
+        for (AsyncWaiter waiter : asyncWaiters) {
+            waiter.stop();
+        }
+        try {
+            CompletableFuture.allOf(asyncShifts.toArray(new CompletableFuture<?>[0]))
+                .get(30, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            Log.warn("Async-официанты не завершились");
+        } catch (ExecutionException e) {
+            Log.warn("Ошибка async-официантов: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        carrierPool.shutdown();
+        asyncWaiters.clear();
+        asyncShifts.clear();
+    }
+
     public void close() {
         if (!running) {
             return;
         }
 
-        Constants.log("========== ЗАКРЫВАЕТСЯ ==========");
-        Constants.log("В очереди клиентов: " + clientQueue.size());
-        Constants.log("В очереди кухни: " + kitchen.getQueueSize());
+        Log.info("========== ЗАКРЫВАЕТСЯ ==========");
+        Log.info("В очереди клиентов: " + clientQueue.size());
+        Log.info("В очереди кухни: " + kitchen.getQueueSize());
 
         // Останавливаем генератор
         clientGenerator.shutdown();
@@ -100,12 +307,16 @@ public class Restaurant {
             waiter.stop();
         }
 
+        if (executionMode == ExecutionMode.ASYNC) {
+            stopAsyncWaiters();
+        }
+
         // Ждём завершения потоков официантов
         for (Thread thread : waiterThreads) {
             try {
                 thread.join(30000);
                 if (thread.isAlive()) {
-                    Constants.log("Поток " + thread.getName() + " не завершился");
+                    Log.warn("Поток " + thread.getName() + " не завершился");
                     thread.interrupt();
                 }
             } catch (InterruptedException e) {
@@ -113,15 +324,24 @@ public class Restaurant {
             }
         }
 
+        if (waiterTimer != null) {
+            waiterTimer.shutdownNow();
+            waiterTimer = null;
+        }
+
         // Закрываем кухню
         kitchen.shutdown();
+        Metrics.close();
+        Log.info(Metrics.summary());
+        Log.info(admission.toString());
+        EventJournal.close();
 
         // Очищаем списки
         waiters.clear();
         waiterThreads.clear();
         running = false;
 
-        Constants.log("========== ЗАКРЫТ ==========");
+        Log.info("========== ЗАКРЫТ ==========");
     }
 
     public void runFor(long milliseconds) throws InterruptedException {
@@ -7,7 +7,7 @@ import javax.swing.*;
 /**
  * Главное окно симулятора ресторана.
  */
-public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
+public class RestaurantGUI extends JFrame implements Waiter.WaiterListener {
 
     // UI компоненты
     private JSpinner cooksSpinner;
@@ -24,6 +24,8 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
     private final List<TableVisual> tables = Collections.synchronizedList(new ArrayList<>());
     private final List<WaiterVisual> waiters = new CopyOnWriteArrayList<>();
     private final List<CookVisual> cooks = new CopyOnWriteArrayList<>();
+    private final HallLayout layout = HallLayout.standard();
+    private TableManager tableManager;
 
     // Счётчики
     private final java.util.concurrent.atomic.AtomicInteger servedCount = new java.util.concurrent.atomic.AtomicInteger(0);
@@ -32,6 +34,11 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
     // Симуляция
     private Restaurant restaurant;
     private ScheduledExecutorService animator;
+    private javax.swing.Timer renderTimer;
+    private final WaiterFrames waiterFrames =
+        new WaiterFrames(TimeUnit.MILLISECONDS.toNanos(Constants.ANIMATION_INTERVAL_MS));
+    private long animationNanos;
+    private final WaiterEventChannel channel = new WaiterEventChannel();
     private volatile boolean running = false;
     private int targetClients = 0;
 
@@ -43,36 +50,15 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
 
     private void initTables() {
         tables.clear();
-        int tableId = 1;
-
-        // Обычные столы
-        for (int row = 0; row < Constants.TABLE_ROWS; row++) {
-            for (int col = 0; col < Constants.TABLE_COLUMNS; col++) {
-                // Пропускаем VIP-зону в центре
-                boolean isVipArea = (row == 1 || row == 2) && (col == 2 || col == 3);
-                if (isVipArea) {
-                    continue;
-                }
-
-                int x = Constants.TABLE_START_X + col * Constants.TABLE_SPACING_X;
-                int y = Constants.TABLE_START_Y + row * Constants.TABLE_SPACING_Y;
-                
-                TableVisual table = new TableVisual(tableId++, x, y);
-                table.setCapacity(Constants.REGULAR_TABLE_CAPACITY);
-                table.setSize(Constants.REGULAR_TABLE_WIDTH, Constants.REGULAR_TABLE_HEIGHT);
-                tables.add(table);
-            }
+        for (HallLayout.Table t : layout.getTables()) {
+            TableVisual table = new TableVisual(t.id(), t.x(), t.y());
+            table.vipTable = t.vip();
+            table.setCapacity(t.capacity());
+            table.setSize(t.width(), t.height());
+            tables.add(table);
         }
 
-        // VIP стол
-        int vipX = Constants.TABLE_START_X + 2 * Constants.TABLE_SPACING_X - 30;
-        int vipY = Constants.TABLE_START_Y + Constants.TABLE_SPACING_Y + 15;
-        
-        TableVisual vipTable = new TableVisual(tableId, vipX, vipY);
-        vipTable.vipTable = true;
-        vipTable.setCapacity(Constants.VIP_TABLE_CAPACITY);
-        vipTable.setSize(Constants.VIP_TABLE_WIDTH, Constants.VIP_TABLE_HEIGHT);
-        tables.add(vipTable);
+        tableManager = new TableManager(tables, RandomSource.create(), layout);
     }
 
     private void initUI() {
@@ -85,7 +71,7 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.add(createControlPanel(), BorderLayout.NORTH);
         
-        panel = new RestaurantPanel(tables, waiters, cooks);
+        panel = new RestaurantPanel(tables, layout, waiterFrames, cooks);
         mainPanel.add(panel, BorderLayout.CENTER);
         
         setContentPane(mainPanel);
@@ -93,7 +79,7 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
 
     private JPanel createControlPanel() {
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 8));
-        controlPanel.setBackground(Constants.COLOR_CONTROL_PANEL);
+        controlPanel.setBackground(Palette.CONTROL_PANEL);
 
         controlPanel.add(createLabel("Повара:"));
         cooksSpinner = createSpinner(1, 6, 2);
@@ -111,11 +97,11 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
         clientsSpinner = createSpinner(5, 100, 30);
         controlPanel.add(clientsSpinner);
 
-        startButton = createButton("Старт", Constants.COLOR_BTN_START);
+        startButton = createButton("Старт", Palette.BTN_START);
         startButton.addActionListener(e -> startSimulation());
         controlPanel.add(startButton);
 
-        stopButton = createButton("Стоп", Constants.COLOR_BTN_STOP);
+        stopButton = createButton("Стоп", Palette.BTN_STOP);
         stopButton.setEnabled(false);
         stopButton.addActionListener(e -> stopSimulation());
         controlPanel.add(stopButton);
@@ -164,6 +150,8 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
         targetClients = numClients;
         initCooks(numCooks);
         initWaiters(numWaiters);
+        waiterFrames.reset(waiters);
+        panel.invalidateBackground();
 
         running = true;
         startButton.setEnabled(false);
@@ -171,20 +159,29 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
         statusLabel.setText("Работает...");
 
         restaurant = new Restaurant(numCooks, numWaiters, Constants.KITCHEN_SIZE, Constants.CLIENT_QUEUE, numClients);
-        restaurant.setCallback(this);
-
-        // Аниматор
+        channel.open();
+        restaurant.setListener(channel);
+        // Место выбирает официант при посадке: ближайшее к нему свободное — идти меньше
+        restaurant.setSeating((clientId, vip, waiterId) ->
+            tableManager.seatIndexNear(clientId, vip, layout.getHomeX(waiterId), layout.getHomeY()));
+
+        // Аниматор: фиксированные шаги движения, после каждого — снимок для отрисовки
+        animationNanos = System.nanoTime();
         animator = Executors.newSingleThreadScheduledExecutor();
         animator.scheduleAtFixedRate(() -> {
             if (running) {
-                updateWaiterPositions();
-                SwingUtilities.invokeLater(() -> {
-                    statsLabel.setText("Готово: " + servedCount.get() + "/" + totalCount.get());
-                    panel.repaint();
-                });
+                channel.drain(this);
+                animate();
             }
         }, 0, Constants.ANIMATION_INTERVAL_MS, TimeUnit.MILLISECONDS);
 
+        // Отрисовка — своим таймером в EDT, аниматор её не ждёт
+        renderTimer = new javax.swing.Timer(Constants.RENDER_INTERVAL_MS, e -> {
+            statsLabel.setText("Готово: " + servedCount.get() + "/" + totalCount.get());
+            panel.repaintDirty();
+        });
+        renderTimer.start();
+
         // Симуляция в отдельном потоке
         new Thread(() -> {
             try {
@@ -197,11 +194,12 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
     }
 
     private void reset() {
+        channel.drain((waiterId, event, clientId, vip) -> { });
         waiters.clear();
         cooks.clear();
         servedCount.set(0);
         totalCount.set(0);
-        TableManager.resetAll(tables);
+        tableManager.resetAll();
     }
 
     private void initCooks(int count) {
@@ -215,15 +213,15 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
     private void initWaiters(int count) {
         Color[] colors = {Color.BLUE, Color.RED, Color.GREEN, Color.ORANGE, Color.MAGENTA};
         
-        for (int i = 0; i < count; i++) {
-            int x = 180 + i * 90;
-            int y = Constants.COUNTER_Y - 35;
-            waiters.add(new WaiterVisual(i + 1, x, y, colors[i % colors.length]));
+        for (int i = 1; i <= count; i++) {
+            waiters.add(new WaiterVisual(i, layout.getHomeX(i), layout.getHomeY(), colors[(i - 1) % colors.length]));
         }
     }
 
     private void stopSimulation() {
         running = false;
+        // Аниматор больше не читает канал — официанты не должны ждать в нём места
+        channel.close();
         if (restaurant != null) {
             new Thread(() -> restaurant.close()).start();
         }
@@ -232,16 +230,26 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
     private void onSimulationEnd() {
         running = false;
         
+        if (renderTimer != null) {
+            renderTimer.stop();
+        }
         if (animator != null) {
+            // Дождаться последнего шага: дальше официантов двигает только EDT
             animator.shutdown();
+            try {
+                animator.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
 
         for (WaiterVisual w : waiters) {
             w.reset();
         }
-        TableManager.resetAll(tables);
+        waiterFrames.reset(waiters);
+        tableManager.resetAll();
 
-        panel.repaint();
+        panel.repaintDirty();
         startButton.setEnabled(true);
         stopButton.setEnabled(false);
         statusLabel.setText("Готово: " + servedCount.get() + "/" + targetClients);
@@ -249,28 +257,16 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
 
     // ==================== CALLBACK ОТ ОФИЦИАНТОВ ====================
 
+    /**
+     * События официантов приходят сюда из channel.drain — в потоке аниматора.
+     */
     @Override
-    public void onStateChanged(int waiterId, String state) {
+    public void onEvent(int waiterId, WaiterEvent event, int clientId, boolean vip) {
         WaiterVisual waiter = findWaiter(waiterId);
         if (waiter == null) {
             return;
         }
-
-        String[] parts = state.split(":");
-        String command = parts[0];
-        
-        int clientId = 0;
-        if (parts.length > 1) {
-            try {
-                clientId = Integer.parseInt(parts[1]);
-            } catch (NumberFormatException e) {
-                return;
-            }
-        }
-        
-        boolean vip = parts.length > 2 && "1".equals(parts[2]);
-
-        handleWaiterState(waiter, command, clientId, vip);
+        handleWaiterState(waiter, event, clientId, vip);
     }
 
     private WaiterVisual findWaiter(int id) {
@@ -282,9 +278,9 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
         return null;
     }
 
-    private void handleWaiterState(WaiterVisual w, String command, int clientId, boolean vip) {
-        switch (command) {
-            case "IDLE" -> {
+    private void handleWaiterState(WaiterVisual w, WaiterEvent event, int clientId, boolean vip) {
+        switch (event) {
+            case IDLE -> {
                 w.state = WaiterState.IDLE;
                 w.targetX = w.homeX;
                 w.targetY = w.homeY;
@@ -292,56 +288,48 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
                 w.awaitingArrival = false;
             }
             
-            case "TO_TABLE" -> {
+            case TO_TABLE -> {
                 totalCount.incrementAndGet();
-                TableVisual table = TableManager.findFreeTable(tables, vip);
-                if (table != null) {
-                    int seatIdx = TableManager.findFreeSeatIndex(table);
-                    if (seatIdx >= 0) {
-                        TableVisual.Seat seat = table.seats.get(seatIdx);
-                        seat.clientId = clientId;
-                        seat.vip = vip;
-                        
-                        Point pos = getSeatPosition(table, seatIdx);
-                        w.state = WaiterState.GOING_TO_TABLE;
-                        w.targetX = pos.x;
-                        w.targetY = pos.y - 25;
-                        w.currentClientId = clientId;
-                        w.awaitingArrival = true;
-                    }
+                // Место уже занял официант (Restaurant.setSeating)
+                TableVisual.Seat seat = tableManager.findSeatByClient(clientId);
+                if (seat != null) {
+                    w.state = WaiterState.GOING_TO_TABLE;
+                    w.targetX = layout.getSeatX(seat.globalIndex);
+                    w.targetY = layout.getSeatApproachY(seat.globalIndex);
+                    w.currentClientId = clientId;
+                    w.awaitingArrival = true;
                 }
             }
             
-            case "TO_KITCHEN" -> {
-                TableManager.setWaitingForFood(tables, clientId);
+            case TO_KITCHEN -> {
+                // Без клиента — за подносом на стойку
+                if (clientId != 0) {
+                    tableManager.setWaitingForFood(clientId);
+                }
                 w.state = WaiterState.GOING_TO_KITCHEN;
                 w.targetX = w.homeX;
-                w.targetY = Constants.COUNTER_Y - 15;
+                w.targetY = layout.getCounterY();
                 w.awaitingArrival = true;
             }
             
-            case "WAIT" -> {
+            case WAIT -> {
                 w.state = WaiterState.WAITING_FOR_FOOD;
                 w.awaitingArrival = false;
             }
             
-            case "DELIVER" -> {
-                TableVisual table = TableManager.findTableByClient(tables, clientId);
-                if (table != null) {
-                    TableVisual.Seat seat = TableManager.findSeatByClient(tables, clientId);
-                    int seatIdx = table.seats.indexOf(seat);
-                    Point pos = getSeatPosition(table, seatIdx);
-                    
+            case DELIVER -> {
+                TableVisual.Seat seat = tableManager.findSeatByClient(clientId);
+                if (seat != null) {
                     w.state = WaiterState.DELIVERING;
-                    w.targetX = pos.x;
-                    w.targetY = pos.y - 25;
+                    w.targetX = layout.getSeatX(seat.globalIndex);
+                    w.targetY = layout.getSeatApproachY(seat.globalIndex);
                     w.hasFood = true;
                     w.awaitingArrival = true;
                 }
             }
             
-            case "DONE" -> {
-                TableManager.setHasFood(tables, clientId);
+            case DONE -> {
+                tableManager.setHasFood(clientId);
                 servedCount.incrementAndGet();
                 ClientGenerator.served();
                 w.hasFood = false;
@@ -350,16 +338,16 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
                 // Клиент уходит через некоторое время
                 int cid = clientId;
                 CompletableFuture.delayedExecutor(Constants.CLIENT_LEAVE_DELAY_MS, TimeUnit.MILLISECONDS)
-                    .execute(() -> TableManager.releaseSeat(tables, cid));
+                    .execute(() -> tableManager.releaseSeat(cid));
             }
             
-            case "FAIL" -> {
-                TableManager.releaseSeat(tables, clientId);
+            case FAIL -> {
+                tableManager.releaseSeat(clientId);
                 w.hasFood = false;
                 w.awaitingArrival = false;
             }
             
-            case "RETURN" -> {
+            case RETURN -> {
                 w.state = WaiterState.RETURNING;
                 w.targetX = w.homeX;
                 w.targetY = w.homeY;
@@ -368,22 +356,23 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
         }
     }
 
-    private Point getSeatPosition(TableVisual table, int seatIndex) {
-        if (table.vipTable) {
-            int cx = table.x + table.width / 2;
-            int[] offsets = {-70, 0, 70};
-            if (seatIndex < 3) {
-                return new Point(cx + offsets[seatIndex], table.y - 8);
-            } else {
-                return new Point(cx + offsets[seatIndex - 3], table.y + table.height + 20);
-            }
-        } else {
-            int cy = table.y + table.height / 2;
-            if (seatIndex == 0) {
-                return new Point(table.x - 18, cy);
-            } else {
-                return new Point(table.x + table.width + 18, cy);
-            }
+    /**
+     * Сделать все шаги, накопившиеся к текущему моменту. Скорость официантов
+     * не зависит от того, насколько точно срабатывает планировщик; после
+     * долгой паузы догоняется не больше ANIMATION_MAX_CATCH_UP шагов.
+     */
+    private void animate() {
+        long step = TimeUnit.MILLISECONDS.toNanos(Constants.ANIMATION_INTERVAL_MS);
+        long now = System.nanoTime();
+        int steps = 0;
+        while (now - animationNanos >= step && steps < Constants.ANIMATION_MAX_CATCH_UP) {
+            animationNanos += step;
+            updateWaiterPositions();
+            waiterFrames.publish(waiters, animationNanos);
+            steps++;
+        }
+        if (now - animationNanos >= step) {
+            animationNanos = now;
         }
     }
 
@@ -399,16 +388,17 @@ public class RestaurantGUI extends JFrame implements Waiter.WaiterCallback {
             } else if (w.awaitingArrival) {
                 w.awaitingArrival = false;
                 if (restaurant != null) {
-                    Waiter waiter = restaurant.getWaiter(w.id);
-                    if (waiter != null) {
-                        waiter.notifyArrived();
-                    }
+                    restaurant.notifyArrived(w.id);
                 }
             }
         }
     }
 
     public static void main(String[] args) {
+        // В окне по умолчанию виден подробный лог, если уровень не задан явно
+        if (System.getProperty("restaurant.log") == null) {
+            Log.setLevel(Log.Level.DEBUG);
+        }
         SwingUtilities.invokeLater(() -> new RestaurantGUI().setVisible(true));
     }
 }
@@ -1,49 +1,139 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.List;
 import javax.swing.*;
 
 /**
  * Панель визуализации ресторана.
+ *
+ * Неподвижная часть зала — кухня, плиты, столы, стулья, повара, легенда —
+ * рисуется один раз в совместимое с экраном изображение и пересоздаётся
+ * только при смене размера (или состава поваров). Кадр — это копия фона
+ * и поверх клиенты, тарелки и официанты. Таймер отрисовки зовёт repaintDirty():
+ * перерисовываются только области, где что-то изменилось с прошлого кадра.
+ *
+ * Официанты берутся из WaiterFrames: позиция интерполируется между двумя
+ * последними шагами аниматора на момент repaintDirty() и запоминается —
+ * paintComponent рисует ровно то, под что запрошены грязные области.
+ *
+ * Координаты мест берутся из HallLayout по сквозному индексу места —
+ * при отрисовке ничего не пересчитывается и не создаётся.
  */
 public class RestaurantPanel extends JPanel {
 
+    private static final Font NUMBER_FONT = new Font(Constants.FONT_NAME, Font.BOLD, 8);
+    private static final Font STATUS_FONT = new Font(Constants.FONT_NAME, Font.PLAIN, 7);
+    private static final Font LEGEND_FONT = new Font(Constants.FONT_NAME, Font.PLAIN, 9);
+
+    // Область клиента с тарелкой относительно координат места
+    private static final int SEAT_HALF_WIDTH = 12;
+    private static final int SEAT_TOP = 18;
+    private static final int SEAT_HEIGHT = 48;
+
+    // Габариты официанта с подносом и подписью статуса относительно (x, y)
+    private static final int WAITER_HALF_WIDTH = 40;
+    private static final int WAITER_TOP = 16;
+    private static final int WAITER_HEIGHT = 56;
+
     private final List<TableVisual> tables;
-    private final List<WaiterVisual> waiters;
+    private final HallLayout layout;
+    private final WaiterFrames waiterFrames;
     private final List<CookVisual> cooks;
 
-    public RestaurantPanel(List<TableVisual> tables, List<WaiterVisual> waiters, List<CookVisual> cooks) {
+    // Фон: изображение и размер, под который оно нарисовано
+    private BufferedImage background;
+    private int backgroundWidth;
+    private int backgroundHeight;
+    private double backgroundScale;
+
+    // Что было отправлено на перерисовку в прошлый раз (только в потоке EDT)
+    private long[] paintedSeats = new long[0];
+    private WaiterFrames.Snapshot[] paintedWaiters = new WaiterFrames.Snapshot[0];
+    private int[] paintedWaiterX = new int[0];
+    private int[] paintedWaiterY = new int[0];
+
+    /**
+     * @param layout планировка, по которой построены tables (места в том же порядке)
+     */
+    public RestaurantPanel(List<TableVisual> tables, HallLayout layout, WaiterFrames waiterFrames, List<CookVisual> cooks) {
         this.tables = tables;
-        this.waiters = waiters;
+        this.layout = layout;
+        this.waiterFrames = waiterFrames;
         this.cooks = cooks;
-        setBackground(Constants.COLOR_BACKGROUND);
+        setBackground(Palette.BACKGROUND);
+    }
+
+    /**
+     * Перерисовать фон заново — например, когда сменился набор поваров.
+     */
+    public void invalidateBackground() {
+        background = null;
+        repaint();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        ensureBackground(g2);
+        g2.drawImage(background, 0, 0, getWidth(), getHeight(), null);
 
-        drawKitchen(g2);
-        drawTables(g2);
-        drawCooks(g2);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        drawClients(g2);
         drawWaiters(g2);
-        drawLegend(g2);
     }
 
-    private void drawKitchen(Graphics2D g2) {
-        int w = getWidth();
+    // ==================== ФОН ====================
+
+    private void ensureBackground(Graphics2D g2) {
+        int w = Math.max(getWidth(), 1);
+        int h = Math.max(getHeight(), 1);
+        // Под HiDPI фон рисуется в пикселях экрана, чтобы не размывался при копировании
+        double scale = g2.getTransform().getScaleX();
+        if (background != null && w == backgroundWidth && h == backgroundHeight && scale == backgroundScale) {
+            return;
+        }
+
+        int pixelWidth = (int) Math.ceil(w * scale);
+        int pixelHeight = (int) Math.ceil(h * scale);
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage image;
+        if (gc != null) {
+            image = gc.createCompatibleImage(pixelWidth, pixelHeight);
+        } else {
+            image = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_RGB);
+        }
+
+        Graphics2D bg = image.createGraphics();
+        try {
+            bg.scale(scale, scale);
+            bg.setColor(getBackground());
+            bg.fillRect(0, 0, w, h);
+            bg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            drawKitchen(bg, w);
+            drawTables(bg);
+            drawCooks(bg);
+            drawLegend(bg);
+        } finally {
+            bg.dispose();
+        }
+
+        background = image;
+        backgroundWidth = w;
+        backgroundHeight = h;
+        backgroundScale = scale;
+    }
 
+    private void drawKitchen(Graphics2D g2, int w) {
         // Фон кухни
-        g2.setColor(new Color(90, 90, 95));
+        g2.setColor(Palette.KITCHEN_FLOOR);
         g2.fillRect(0, Constants.KITCHEN_Y, w, 200);
 
         // Верхняя граница
-        g2.setColor(Constants.COLOR_KITCHEN_BG);
+        g2.setColor(Palette.KITCHEN_BG);
         g2.fillRect(0, Constants.KITCHEN_Y, w, 20);
 
         // Стол раздачи
-        g2.setColor(Constants.COLOR_COUNTER);
+        g2.setColor(Palette.COUNTER);
         g2.fillRoundRect(100, Constants.COUNTER_Y, w - 200, 25, 8, 8);
 
         // Плиты
@@ -51,10 +141,10 @@ public class RestaurantPanel extends JPanel {
             int px = 120 + i * 150;
             int py = Constants.KITCHEN_Y + 40;
             
-            g2.setColor(new Color(50, 50, 55));
+            g2.setColor(Palette.STOVE);
             g2.fillRoundRect(px, py, 80, 50, 6, 6);
             
-            g2.setColor(new Color(40, 40, 45));
+            g2.setColor(Palette.BURNER);
             g2.fillOval(px + 10, py + 10, 25, 25);
             g2.fillOval(px + 45, py + 10, 25, 25);
         }
@@ -70,15 +160,15 @@ public class RestaurantPanel extends JPanel {
 
     private void drawTable(Graphics2D g2, TableVisual t) {
         // Тень
-        g2.setColor(new Color(0, 0, 0, 30));
+        g2.setColor(Palette.TABLE_SHADOW);
         g2.fillRoundRect(t.x + 3, t.y + 3, t.width, t.height, 8, 8);
 
         // Стол
         Color tableColor;
         if (t.vipTable) {
-            tableColor = Constants.COLOR_TABLE_VIP;
+            tableColor = Palette.TABLE_VIP;
         } else {
-            tableColor = Constants.COLOR_TABLE;
+            tableColor = Palette.TABLE;
         }
         g2.setColor(tableColor);
         g2.fillRoundRect(t.x, t.y, t.width, t.height, 8, 8);
@@ -87,23 +177,37 @@ public class RestaurantPanel extends JPanel {
 
         // Стулья
         drawChairs(g2, t);
+    }
 
-        // Клиенты
-        for (int i = 0; i < t.seats.size(); i++) {
-            TableVisual.Seat seat = t.seats.get(i);
-            if (!seat.isFree()) {
-                Point pos = getSeatPosition(t, i);
-                drawClient(g2, pos.x, pos.y, seat);
-            }
-            if (seat.hasFood) {
-                Point pos = getSeatPosition(t, i);
-                drawPlate(g2, pos.x - 8, pos.y + 18);
+    // ==================== КАДР ====================
+
+    private void drawClients(Graphics2D g2) {
+        int k = 0;
+        synchronized (tables) {
+            for (TableVisual t : tables) {
+                for (int i = 0; i < t.seats.size(); i++, k++) {
+                    long seat = t.seats.get(i).state();
+                    if (TableVisual.Seat.isFree(seat) && !TableVisual.Seat.hasFood(seat)) {
+                        continue;
+                    }
+                    int x = layout.getSeatX(k);
+                    int y = layout.getSeatY(k);
+                    if (!g2.hitClip(x - SEAT_HALF_WIDTH, y - SEAT_TOP, 2 * SEAT_HALF_WIDTH, SEAT_HEIGHT)) {
+                        continue;
+                    }
+                    if (!TableVisual.Seat.isFree(seat)) {
+                        drawClient(g2, x, y, seat);
+                    }
+                    if (TableVisual.Seat.hasFood(seat)) {
+                        drawPlate(g2, x - 8, y + 18);
+                    }
+                }
             }
         }
     }
 
     private void drawChairs(Graphics2D g2, TableVisual t) {
-        g2.setColor(Constants.COLOR_CHAIR);
+        g2.setColor(Palette.CHAIR);
         
         if (t.vipTable) {
             int cx = t.x + t.width / 2;
@@ -119,34 +223,15 @@ public class RestaurantPanel extends JPanel {
         }
     }
 
-    private Point getSeatPosition(TableVisual t, int seatInd) {
-        if (t.vipTable) {
-            int cx = t.x + t.width / 2;
-            int[] offsets = {-70, 0, 70};
-            if (seatInd < 3) {
-                return new Point(cx + offsets[seatInd], t.y - 8);
-            } else {
-                return new Point(cx + offsets[seatInd - 3], t.y + t.height + 20);
-            }
-        } else {
-            int cy = t.y + t.height / 2;
-            if (seatInd == 0) {
-                return new Point(t.x - 18, cy);
-            } else {
-                return new Point(t.x + t.width + 18, cy);
-            }
-        }
-    }
-
-    private void drawClient(Graphics2D g2, int x, int y, TableVisual.Seat seat) {
+    private void drawClient(Graphics2D g2, int x, int y, long seat) {
         // Цвет тела
         Color bodyColor;
-        if (seat.vip) {
-            bodyColor = Constants.COLOR_CLIENT_VIP;
-        } else if (seat.waitingForFood) {
-            bodyColor = Constants.COLOR_CLIENT_WAITING;
+        if (TableVisual.Seat.isVip(seat)) {
+            bodyColor = Palette.CLIENT_VIP;
+        } else if (TableVisual.Seat.isWaitingForFood(seat)) {
+            bodyColor = Palette.CLIENT_WAITING;
         } else {
-            bodyColor = Constants.COLOR_CLIENT_READY;
+            bodyColor = Palette.CLIENT_READY;
         }
 
         // Тело
@@ -154,16 +239,16 @@ public class RestaurantPanel extends JPanel {
         g2.fillOval(x - 10, y, 20, 22);
 
         // Голова
-        g2.setColor(Constants.COLOR_SKIN);
+        g2.setColor(Palette.SKIN);
         g2.fillOval(x - 7, y - 12, 14, 14);
 
         // Волосы
-        g2.setColor(Constants.COLOR_HAIR);
+        g2.setColor(Palette.HAIR);
         g2.fillArc(x - 7, y - 14, 14, 10, 0, 180);
 
         // Корона VIP
-        if (seat.vip) {
-            g2.setColor(Constants.COLOR_VIP_CROWN);
+        if (TableVisual.Seat.isVip(seat)) {
+            g2.setColor(Palette.VIP_CROWN);
             g2.fillPolygon(
                 new int[]{x - 5, x, x + 5}, 
                 new int[]{y - 10, y - 17, y - 10}, 
@@ -173,8 +258,8 @@ public class RestaurantPanel extends JPanel {
 
         // Номер клиента
         g2.setColor(Color.WHITE);
-        g2.setFont(new Font(Constants.FONT_NAME, Font.BOLD, 8));
-        String idStr = String.valueOf(seat.clientId);
+        g2.setFont(NUMBER_FONT);
+        String idStr = String.valueOf(TableVisual.Seat.clientId(seat));
         int textWidth = g2.getFontMetrics().stringWidth(idStr);
         g2.drawString(idStr, x - textWidth / 2, y + 15);
     }
@@ -182,7 +267,7 @@ public class RestaurantPanel extends JPanel {
     private void drawPlate(Graphics2D g2, int x, int y) {
         g2.setColor(Color.WHITE);
         g2.fillOval(x, y, 16, 10);
-        g2.setColor(new Color(180, 80, 60));
+        g2.setColor(Palette.PLATE_FOOD);
         g2.fillOval(x + 3, y + 2, 10, 6);
     }
 
@@ -193,7 +278,7 @@ public class RestaurantPanel extends JPanel {
             g2.fillOval(cook.x - 10, cook.y, 20, 26);
 
             // Голова
-            g2.setColor(Constants.COLOR_SKIN);
+            g2.setColor(Palette.SKIN);
             g2.fillOval(cook.x - 7, cook.y - 14, 14, 14);
 
             // Колпак
@@ -204,44 +289,48 @@ public class RestaurantPanel extends JPanel {
     }
 
     private void drawWaiters(Graphics2D g2) {
-        for (WaiterVisual w : waiters) {
-            int x = (int) w.x;
-            int y = (int) w.y;
+        for (int i = 0; i < paintedWaiters.length; i++) {
+            WaiterFrames.Snapshot w = paintedWaiters[i];
+            int x = paintedWaiterX[i];
+            int y = paintedWaiterY[i];
+            if (!g2.hitClip(x - WAITER_HALF_WIDTH, y - WAITER_TOP, 2 * WAITER_HALF_WIDTH, WAITER_HEIGHT)) {
+                continue;
+            }
 
             // Тень
-            g2.setColor(new Color(0, 0, 0, 40));
+            g2.setColor(Palette.WAITER_SHADOW);
             g2.fillOval(x - 8, y + 24, 16, 6);
 
             // Тело
-            g2.setColor(w.color);
+            g2.setColor(w.color());
             g2.fillOval(x - 9, y, 18, 24);
 
             // Голова
-            g2.setColor(Constants.COLOR_SKIN);
+            g2.setColor(Palette.SKIN);
             g2.fillOval(x - 6, y - 12, 12, 12);
 
             // Волосы
-            g2.setColor(new Color(60, 40, 20));
+            g2.setColor(Palette.WAITER_HAIR);
             g2.fillArc(x - 6, y - 13, 12, 8, 0, 180);
 
             // Поднос с едой
-            if (w.hasFood) {
-                g2.setColor(new Color(100, 100, 100));
+            if (w.hasFood()) {
+                g2.setColor(Palette.TRAY);
                 g2.fillOval(x + 6, y + 2, 14, 5);
-                g2.setColor(new Color(200, 100, 70));
+                g2.setColor(Palette.TRAY_FOOD);
                 g2.fillOval(x + 8, y - 1, 10, 6);
             }
 
             // Номер
             g2.setColor(Color.WHITE);
-            g2.setFont(new Font(Constants.FONT_NAME, Font.BOLD, 8));
-            g2.drawString(String.valueOf(w.id), x - 2, y + 15);
+            g2.setFont(NUMBER_FONT);
+            g2.drawString(String.valueOf(w.id()), x - 2, y + 15);
 
             // Статус
-            String status = w.state.getDisplayName();
+            String status = w.state().getDisplayName();
             if (!status.isEmpty()) {
-                g2.setFont(new Font(Constants.FONT_NAME, Font.PLAIN, 7));
-                g2.setColor(new Color(80, 80, 80));
+                g2.setFont(STATUS_FONT);
+                g2.setColor(Palette.STATUS_TEXT);
                 int textWidth = g2.getFontMetrics().stringWidth(status);
                 g2.drawString(status, x - textWidth / 2, y + 36);
             }
@@ -250,22 +339,22 @@ public class RestaurantPanel extends JPanel {
 
     private void drawLegend(Graphics2D g2) {
         int y = Constants.KITCHEN_Y + 115;
-        g2.setFont(new Font(Constants.FONT_NAME, Font.PLAIN, 9));
+        g2.setFont(LEGEND_FONT);
 
         // Готов
-        g2.setColor(Constants.COLOR_CLIENT_READY);
+        g2.setColor(Palette.CLIENT_READY);
         g2.fillOval(15, y, 8, 8);
         g2.setColor(Color.WHITE);
         g2.drawString("Готов", 26, y + 7);
 
         // Ждёт
-        g2.setColor(Constants.COLOR_CLIENT_WAITING);
+        g2.setColor(Palette.CLIENT_WAITING);
         g2.fillOval(70, y, 8, 8);
         g2.setColor(Color.WHITE);
         g2.drawString("Ждёт", 81, y + 7);
 
         // VIP
-        g2.setColor(Constants.COLOR_CLIENT_VIP);
+        g2.setColor(Palette.CLIENT_VIP);
         g2.fillOval(120, y, 8, 8);
         g2.setColor(Color.WHITE);
         g2.drawString("VIP", 131, y + 7);
@@ -276,4 +365,89 @@ public class RestaurantPanel extends JPanel {
         g2.setColor(Color.WHITE);
         g2.drawString("Официант", 171, y + 7);
     }
+
+    // ==================== ГРЯЗНЫЕ ОБЛАСТИ ====================
+
+    /**
+     * Запросить перерисовку только того, что изменилось с прошлого вызова:
+     * старое и новое место каждого сдвинувшегося официанта и места за столами,
+     * где сменился клиент или его статус. Вызывается в потоке EDT.
+     */
+    public void repaintDirty() {
+        WaiterFrames.Frame frame = waiterFrames.latest();
+        double alpha = frame.alpha(System.nanoTime());
+
+        int seatCount = 0;
+        synchronized (tables) {
+            for (TableVisual t : tables) {
+                seatCount += t.seats.size();
+            }
+        }
+        if (seatCount != paintedSeats.length || frame.size() != paintedWaiters.length) {
+            // Сменился состав — проще перерисовать всё и запомнить заново
+            paintedSeats = new long[seatCount];
+            paintedWaiters = new WaiterFrames.Snapshot[frame.size()];
+            paintedWaiterX = new int[frame.size()];
+            paintedWaiterY = new int[frame.size()];
+            rememberAll(frame, alpha);
+            repaint();
+            return;
+        }
+
+        int k = 0;
+        synchronized (tables) {
+            for (TableVisual t : tables) {
+                for (int i = 0; i < t.seats.size(); i++, k++) {
+                    long seat = t.seats.get(i).state();
+                    if (seat != paintedSeats[k]) {
+                        paintedSeats[k] = seat;
+                        repaintSeat(k);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < paintedWaiters.length; i++) {
+            WaiterFrames.Snapshot w = frame.current()[i];
+            WaiterFrames.Snapshot painted = paintedWaiters[i];
+            int x = (int) frame.x(i, alpha);
+            int y = (int) frame.y(i, alpha);
+            if (x != paintedWaiterX[i] || y != paintedWaiterY[i]
+                || w.state() != painted.state() || w.hasFood() != painted.hasFood()) {
+                repaintWaiter(paintedWaiterX[i], paintedWaiterY[i]);
+                repaintWaiter(x, y);
+                paintedWaiterX[i] = x;
+                paintedWaiterY[i] = y;
+            }
+            paintedWaiters[i] = w;
+        }
+    }
+
+    private void rememberAll(WaiterFrames.Frame frame, double alpha) {
+        int k = 0;
+        synchronized (tables) {
+            for (TableVisual t : tables) {
+                for (TableVisual.Seat seat : t.seats) {
+                    paintedSeats[k++] = seat.state();
+                }
+            }
+        }
+        for (int i = 0; i < paintedWaiters.length; i++) {
+            paintedWaiters[i] = frame.current()[i];
+            paintedWaiterX[i] = (int) frame.x(i, alpha);
+            paintedWaiterY[i] = (int) frame.y(i, alpha);
+        }
+    }
+
+    private void repaintWaiter(int x, int y) {
+        repaint(x - WAITER_HALF_WIDTH, y - WAITER_TOP, 2 * WAITER_HALF_WIDTH, WAITER_HEIGHT);
+    }
+
+    /**
+     * Перерисовать клиента и тарелку на месте seat (сквозной индекс).
+     */
+    private void repaintSeat(int seat) {
+        repaint(layout.getSeatX(seat) - SEAT_HALF_WIDTH, layout.getSeatY(seat) - SEAT_TOP,
+            2 * SEAT_HALF_WIDTH, SEAT_HEIGHT);
+    }
 }
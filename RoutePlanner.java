@@ -0,0 +1,92 @@
+/**
+ * Порядок обхода мест при разносе нескольких заказов за один выход.
+ *
+ * Жадный «ближайший сосед» по координатам мест HallLayout: из текущей точки —
+ * к ближайшему ещё не обслуженному месту. Место заказа — то, куда клиента
+ * посадили (Order.getSeat); заказ без места считается стоящим в текущей точке.
+ * Для подноса на несколько тарелок это почти оптимально и стоит O(n²)
+ * без аллокаций — заказы переставляются прямо в переданном массиве.
+ *
+ * Поднос экономит путь и разгружает официантов, но тарелка, которую несут
+ * не первой, ждёт обхода предыдущих мест. planTrip ограничивает эту задержку
+ * (Constants.TRAY_MAX_DETOUR_PX) и везёт самый старый заказ первым.
+ */
+public final class RoutePlanner {
+
+    private RoutePlanner() {}
+
+    /**
+     * Выход официанта waiterId со стойки (от его колонки у стойки) с пределом
+     * TRAY_MAX_DETOUR_PX — так планируют Waiter и HeadlessRestaurant.
+     *
+     * @return сколько первых заказов stops разнести в этот выход
+     */
+    public static int planTrip(HallLayout layout, int waiterId, Order[] stops, int count) {
+        return planTrip(layout, layout.getHomeX(waiterId), layout.getCounterY(), stops, count,
+            Constants.TRAY_MAX_DETOUR_PX);
+    }
+
+    /**
+     * Маршрут выхода с подносом с пределом задержки. Первым — самый старый
+     * заказ (stops[0]): он идёт прямо, как без подноса. Дальше — ближайший сосед
+     * среди мест, заход к которым удлиняет путь тарелки против прямого хода
+     * от (fromX, fromY) не больше чем на maxDetourPx; если таких нет, выход обрывается.
+     *
+     * @return сколько первых заказов stops разнести в этот выход; остальные — в хвосте
+     */
+    public static int planTrip(HallLayout layout, double fromX, double fromY, Order[] stops, int count,
+                               double maxDetourPx) {
+        if (count == 0) {
+            return 0;
+        }
+        double x = fromX;
+        double y = fromY;
+        double path = 0;
+        int seat = stops[0].getSeat();
+        if (seat >= 0) {
+            x = layout.getSeatX(seat);
+            y = layout.getSeatApproachY(seat);
+            path = distance(fromX, fromY, x, y);
+        }
+        for (int i = 1; i < count; i++) {
+            int best = -1;
+            double bestStep = Double.MAX_VALUE;
+            for (int j = i; j < count; j++) {
+                int candidate = stops[j].getSeat();
+                if (candidate < 0) {
+                    // Без места — отдать по пути
+                    best = j;
+                    bestStep = 0;
+                    break;
+                }
+                double seatX = layout.getSeatX(candidate);
+                double seatY = layout.getSeatApproachY(candidate);
+                double step = distance(x, y, seatX, seatY);
+                if (step < bestStep && path + step - distance(fromX, fromY, seatX, seatY) <= maxDetourPx) {
+                    bestStep = step;
+                    best = j;
+                }
+            }
+            if (best < 0) {
+                return i;
+            }
+            Order next = stops[best];
+            stops[best] = stops[i];
+            stops[i] = next;
+
+            seat = next.getSeat();
+            path += bestStep;
+            if (seat >= 0) {
+                x = layout.getSeatX(seat);
+                y = layout.getSeatApproachY(seat);
+            }
+        }
+        return count;
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
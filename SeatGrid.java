@@ -0,0 +1,153 @@
+/**
+ * Равномерная сетка мест зала для поиска ближайшего места.
+ *
+ * Зал делится на квадратные ячейки; места ячейки лежат подряд в одном
+ * массиве (cellStart — начало ячейки, как в CSR). Поиск идёт кольцами ячеек
+ * от точки наружу и останавливается, как только ближе найденного места быть
+ * уже ничего не может — в большом зале смотрится лишь несколько ячеек.
+ * Сетка неизменяема; свободно ли место, решает вызывающий (SeatFilter).
+ */
+public final class SeatGrid {
+
+    /**
+     * Подходит ли место. Реализация без захвата переменных — без аллокаций.
+     */
+    public interface SeatFilter {
+        boolean accept(int seat);
+    }
+
+    private static final int SEATS_PER_CELL = 4;
+
+    private final int[] seatX;
+    private final int[] seatY;
+    private final int minX;
+    private final int minY;
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellSeats;
+
+    public SeatGrid(HallLayout layout) {
+        int count = layout.getSeatCount();
+        this.seatX = new int[count];
+        this.seatY = new int[count];
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            seatX[i] = layout.getSeatX(i);
+            seatY[i] = layout.getSeatY(i);
+            minX = Math.min(minX, seatX[i]);
+            minY = Math.min(minY, seatY[i]);
+            maxX = Math.max(maxX, seatX[i]);
+            maxY = Math.max(maxY, seatY[i]);
+        }
+        if (count == 0) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        this.minX = minX;
+        this.minY = minY;
+
+        // Ячейка — чтобы в среднем на неё приходилось SEATS_PER_CELL мест
+        double area = (double) (maxX - minX + 1) * (maxY - minY + 1);
+        this.cellSize = Math.max(1, (int) Math.ceil(Math.sqrt(area * SEATS_PER_CELL / Math.max(1, count))));
+        this.cols = (maxX - minX) / cellSize + 1;
+        this.rows = (maxY - minY) / cellSize + 1;
+
+        // Раскладка по ячейкам: подсчёт, префиксные суммы, заполнение
+        this.cellStart = new int[cols * rows + 1];
+        for (int i = 0; i < count; i++) {
+            cellStart[cellOf(seatX[i], seatY[i]) + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellSeats = new int[count];
+        int[] fill = new int[cols * rows];
+        for (int i = 0; i < count; i++) {
+            int cell = cellOf(seatX[i], seatY[i]);
+            cellSeats[cellStart[cell] + fill[cell]++] = i;
+        }
+    }
+
+    private int cellOf(int x, int y) {
+        return row(y) * cols + col(x);
+    }
+
+    private int col(double x) {
+        int c = (int) Math.floor((x - minX) / cellSize);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private int row(double y) {
+        int r = (int) Math.floor((y - minY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+
+    /**
+     * Ближайшее к (x, y) место, которое принимает filter.
+     *
+     * @return сквозной индекс места или -1, если подходящих нет
+     */
+    public int nearest(double x, double y, SeatFilter filter) {
+        int cx = col(x);
+        int cy = row(y);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int maxRing = Math.max(cols, rows);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Все ячейки кольца дальше ring - 1 ячеек от точки (точка может быть и вне сетки)
+            double ringDistance = ringDistance(x, y, cx, cy, ring);
+            if (best >= 0 && ringDistance * ringDistance >= bestDistance) {
+                break;
+            }
+            for (int row = cy - ring; row <= cy + ring; row++) {
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edge = row == cy - ring || row == cy + ring;
+                int step = 1;
+                if (!edge) {
+                    step = Math.max(1, 2 * ring);
+                }
+                for (int col = cx - ring; col <= cx + ring; col += step) {
+                    if (col < 0 || col >= cols) {
+                        continue;
+                    }
+                    int cell = row * cols + col;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int seat = cellSeats[i];
+                        double dx = seatX[seat] - x;
+                        double dy = seatY[seat] - y;
+                        double distance = dx * dx + dy * dy;
+                        if (distance < bestDistance && filter.accept(seat)) {
+                            bestDistance = distance;
+                            best = seat;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Нижняя граница расстояния от (x, y) до ячеек кольца ring вокруг (cx, cy).
+     */
+    private double ringDistance(double x, double y, int cx, int cy, int ring) {
+        if (ring == 0) {
+            return 0;
+        }
+        double left = x - (minX + (double) (cx - ring + 1) * cellSize);
+        double right = minX + (double) (cx + ring) * cellSize - x;
+        double top = y - (minY + (double) (cy - ring + 1) * cellSize);
+        double bottom = minY + (double) (cy + ring) * cellSize - y;
+        return Math.max(0, Math.min(Math.min(left, right), Math.min(top, bottom)));
+    }
+}
@@ -0,0 +1,356 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сеть ресторанов: N независимых шардов HeadlessRestaurant параллельно по ядрам.
+ *
+ * У входа — общий поток клиентов (по генератору на шард, на своих часах)
+ * и балансировщик, который отправляет каждого клиента в один из шардов по политике.
+ * Часы идут окнами по SHARD_WINDOW_MS: сначала вход раздаёт клиентов окна,
+ * затем шарды прогоняют окно одновременно, каждый в своём потоке.
+ * Глубину очередей шардов балансировщик видит на начало окна плюс
+ * отправленных за окно — как табло у входа, без общих блокировок.
+ */
+public class ShardedRestaurant {
+
+    /**
+     * Политика балансировщика.
+     */
+    public enum Policy {
+        ROUND_ROBIN,   // по кругу
+        LEAST_LOADED,  // в самую короткую очередь
+        TWO_CHOICES    // короче из двух случайных
+    }
+
+    private final int shardCount;
+    private final int cooks;
+    private final int waiters;
+    private final int maxClients;
+    private final Policy policy;
+    private RandomSource random = RandomSource.create();
+    private SplittableRandom balancerRandom;
+
+    private Shard[] shards;
+    private SimulationEngine front;
+    private BlockingDeque<Waiter.ClientRequest> entrance;
+    private final List<ClientGenerator> generators = new ArrayList<>();
+    private int nextShard;
+
+    public ShardedRestaurant(int shards, int cooks, int waiters, int maxClients, Policy policy) {
+        this.shardCount = shards;
+        this.cooks = cooks;
+        this.waiters = waiters;
+        this.maxClients = maxClients;
+        this.policy = policy;
+    }
+
+    /**
+     * Источник случайности для всех генераторов и балансировщика. Задаётся до run().
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    public RandomSource getRandom() {
+        return random;
+    }
+
+    /**
+     * Прогнать смену до последнего клиента.
+     */
+    public Result run() throws InterruptedException {
+        return run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Прогнать смену длительностью durationMs виртуального времени,
+     * затем дообслужить всех, кто уже пришёл.
+     */
+    public Result run(long durationMs) throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        open();
+
+        int threads = Math.max(1, Math.min(shardCount, Runtime.getRuntime().availableProcessors()) - 1);
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+            r -> new Thread(r, "Шард-" + threadIndex.incrementAndGet()));
+        try {
+            long now = 0;
+            while (now < durationMs && !generatorsFinished()) {
+                long windowEnd = Math.min(now + Constants.SHARD_WINDOW_MS, durationMs);
+                front.runUntil(windowEnd);
+                runShards(pool, shard -> shard.advanceTo(windowEnd));
+                now = windowEnd;
+            }
+            for (ClientGenerator generator : generators) {
+                generator.stop();
+            }
+            runShards(pool, Shard::finish);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<HeadlessRestaurant.Result> results = new ArrayList<>(shardCount);
+        for (Shard shard : shards) {
+            results.add(shard.result);
+        }
+        return new Result(policy, results, total(results, System.currentTimeMillis() - startedAt));
+    }
+
+    private void open() {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            HeadlessRestaurant restaurant = new HeadlessRestaurant(
+                cooks, waiters, Constants.KITCHEN_SIZE, Constants.CLIENT_QUEUE, 0);
+            restaurant.setJournalSource(i + 1);
+            restaurant.openShard();
+            shards[i] = new Shard(restaurant);
+        }
+        nextShard = 0;
+        balancerRandom = random.stream(RandomSource.Stream.BALANCER);
+
+        // Поток клиентов в shardCount раз плотнее, чем у одного ресторана
+        front = new SimulationEngine();
+        entrance = new LinkedBlockingDeque<>();
+        generators.clear();
+        for (int i = 0; i < shardCount; i++) {
+            int share = maxClients / shardCount;
+            if (i < maxClients % shardCount) {
+                share++;
+            }
+            ClientGenerator generator = new ClientGenerator(entrance, share, front);
+            generator.setRandom(random, i);
+            generator.setArrivalListener(this::dispatch);
+            generators.add(generator);
+        }
+        for (ClientGenerator generator : generators) {
+            generator.start();
+        }
+    }
+
+    private boolean generatorsFinished() {
+        for (ClientGenerator generator : generators) {
+            if (!generator.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== БАЛАНСИРОВЩИК ====================
+
+    /**
+     * Раздать пришедших клиентов по шардам.
+     */
+    private void dispatch() {
+        Waiter.ClientRequest request;
+        while ((request = entrance.poll()) != null) {
+            Shard shard = shards[choose()];
+            shard.inbox.add(new Arrival(front.now(), request));
+        }
+    }
+
+    private int choose() {
+        return switch (policy) {
+            case ROUND_ROBIN -> {
+                int shard = nextShard;
+                nextShard = (nextShard + 1) % shardCount;
+                yield shard;
+            }
+            case LEAST_LOADED -> {
+                int best = 0;
+                for (int i = 1; i < shardCount; i++) {
+                    if (shards[i].load() < shards[best].load()) {
+                        best = i;
+                    }
+                }
+                yield best;
+            }
+            case TWO_CHOICES -> {
+                if (shardCount == 1) {
+                    yield 0;
+                }
+                int first = balancerRandom.nextInt(shardCount);
+                int second = balancerRandom.nextInt(shardCount - 1);
+                if (second >= first) {
+                    second++;
+                }
+                if (shards[second].load() < shards[first].load()) {
+                    yield second;
+                }
+                yield first;
+            }
+        };
+    }
+
+    // ==================== ШАРДЫ ====================
+
+    private interface ShardStep {
+        void run(Shard shard);
+    }
+
+    /**
+     * Выполнить шаг на всех шардах параллельно и дождаться всех.
+     * Первый шард идёт в вызывающем потоке — на одном шарде нет передачи между потоками.
+     */
+    private void runShards(ExecutorService pool, ShardStep step) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>(shardCount - 1);
+        for (int i = 1; i < shardCount; i++) {
+            Shard shard = shards[i];
+            futures.add(pool.submit(() -> step.run(shard)));
+        }
+        step.run(shards[0]);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ошибка в шарде", e.getCause());
+            }
+        }
+    }
+
+    private record Arrival(long atMs, Waiter.ClientRequest request) {}
+
+    /**
+     * Шард и его входящие за текущее окно. Входящие пишет балансировщик,
+     * пока шарды стоят; забирает поток шарда в начале окна.
+     */
+    private static final class Shard {
+        final HeadlessRestaurant restaurant;
+        final List<Arrival> inbox = new ArrayList<>();
+        int queueDepth;
+        HeadlessRestaurant.Result result;
+
+        Shard(HeadlessRestaurant restaurant) {
+            this.restaurant = restaurant;
+        }
+
+        int load() {
+            return queueDepth + inbox.size();
+        }
+
+        void advanceTo(long timeMs) {
+            deliver();
+            restaurant.advanceTo(timeMs);
+            queueDepth = restaurant.getClientQueueDepth();
+        }
+
+        void finish() {
+            deliver();
+            result = restaurant.finishShard();
+        }
+
+        private void deliver() {
+            for (Arrival arrival : inbox) {
+                restaurant.arrive(arrival.atMs(), arrival.request());
+            }
+            inbox.clear();
+        }
+    }
+
+    // ==================== ИТОГ ====================
+
+    /**
+     * Сумма по шардам; перцентиль — по объединённой гистограмме.
+     */
+    private HeadlessRestaurant.Result total(List<HeadlessRestaurant.Result> results, long wallTimeMs) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        int clients = 0;
+        int served = 0;
+        int rejected = 0;
+        int timedOut = 0;
+        int expired = 0;
+        int turnedAway = 0;
+        int refused = 0;
+        long totalLatency = 0;
+        long maxLatency = 0;
+        double cookMinutes = 0;
+        long walked = 0;
+        long virtualTime = 0;
+        long lastOutcome = 0;
+        long events = front.getProcessedEvents();
+        for (int i = 0; i < shardCount; i++) {
+            HeadlessRestaurant.Result r = results.get(i);
+            latencies.add(shards[i].restaurant.getLatencies());
+            clients += r.clients();
+            served += r.served();
+            rejected += r.rejected();
+            timedOut += r.timedOut();
+            expired += r.expired();
+            turnedAway += r.turnedAway();
+            refused += r.refused();
+            totalLatency += r.avgLatencyMs() * r.served();
+            maxLatency = Math.max(maxLatency, r.maxLatencyMs());
+            cookMinutes += r.cookMinutes();
+            walked += r.walkedPx();
+            virtualTime = Math.max(virtualTime, r.virtualTimeMs());
+            lastOutcome = Math.max(lastOutcome, r.lastOutcomeMs());
+            events += r.events();
+        }
+        long avgLatency = 0;
+        if (served > 0) {
+            avgLatency = totalLatency / served;
+        }
+        return new HeadlessRestaurant.Result(clients, served, rejected, timedOut, expired, turnedAway, refused,
+            avgLatency, latencies.valueAtPercentile(99) / 1_000_000, maxLatency, cookMinutes,
+            walked, virtualTime, lastOutcome, events, wallTimeMs);
+    }
+
+    /**
+     * Итог смены: по каждому шарду и по всей сети.
+     * У шардов wallTimeMs — время, потраченное на шард, у суммы — общее реальное время.
+     */
+    public record Result(Policy policy, List<HeadlessRestaurant.Result> shards, HeadlessRestaurant.Result total) {
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < shards.size(); i++) {
+                sb.append("Шард ").append(i + 1).append(": ").append(shards.get(i)).append('\n');
+            }
+            sb.append("Всего (").append(policy).append("): ").append(total);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Запуск: ShardedRestaurant [шарды] [повара] [официанты] [клиенты] [политика]
+     * Повара и официанты — на каждый шард, клиенты — на всю сеть.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int shards = Runtime.getRuntime().availableProcessors();
+        int cooks = 2;
+        int waiters = 3;
+        int clients = 1_000_000;
+        Policy policy = Policy.TWO_CHOICES;
+        if (args.length > 0) {
+            shards = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            cooks = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            waiters = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            clients = Integer.parseInt(args[3]);
+        }
+        if (args.length > 4) {
+            policy = Policy.valueOf(args[4]);
+        }
+
+        ShardedRestaurant restaurant = new ShardedRestaurant(shards, cooks, waiters, clients, policy);
+        Log.info("Случайность: " + restaurant.getRandom() + " (-Drestaurant.seed)");
+        EventJournal.openFromProperty();
+        Log.info(restaurant.run().toString());
+        EventJournal.close();
+        Log.flush();
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.PriorityQueue;
+
+/**
+ * Движок дискретно-событийной симуляции.
+ *
+ * Виртуальные часы + очередь событий, упорядоченная по времени.
+ * Вместо Thread.sleep события просто выполняются по порядку,
+ * а часы перескакивают к моменту следующего события.
+ * Однопоточный: все действия выполняются в потоке, вызвавшем run.
+ */
+public class SimulationEngine {
+
+    /**
+     * Событие, которое может стать ненужным до своего времени (таймаут
+     * уже завершённого заказа). Отменённое снимается без хода часов и не
+     * считается обработанным: иначе смена «длилась бы» до последнего таймаута.
+     */
+    public interface Cancellable extends Runnable {
+        boolean isCancelled();
+    }
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now = 0;
+    private long sequence = 0;
+    private long processed = 0;
+
+    /**
+     * Текущее виртуальное время в миллисекундах.
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Запланировать действие через delayMs виртуальных миллисекунд.
+     * События с одинаковым временем выполняются в порядке добавления.
+     */
+    public void schedule(long delayMs, Runnable action) {
+        events.add(new Event(now + Math.max(0, delayMs), sequence++, action));
+    }
+
+    /**
+     * Выполнить все события со временем не позже endTime.
+     */
+    public void runUntil(long endTime) {
+        while (!events.isEmpty() && events.peek().time() <= endTime) {
+            Event event = events.poll();
+            if (event.action() instanceof Cancellable cancellable && cancellable.isCancelled()) {
+                continue;
+            }
+            now = event.time();
+            processed++;
+            event.action().run();
+        }
+        if (endTime != Long.MAX_VALUE && now < endTime) {
+            now = endTime;
+        }
+    }
+
+    /**
+     * Выполнить все события до опустошения очереди.
+     */
+    public void run() {
+        runUntil(Long.MAX_VALUE);
+    }
+
+    public boolean hasPendingEvents() {
+        return !events.isEmpty();
+    }
+
+    public long getProcessedEvents() {
+        return processed;
+    }
+
+    private record Event(long time, long seq, Runnable action) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time) {
+                return Long.compare(time, other.time);
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+}
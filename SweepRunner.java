@@ -0,0 +1,251 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перебор параметров ресторана из командной строки, без GUI и AWT.
+ *
+ * Каждая комбинация повара × официанты × очередь кухни × очередь клиентов × клиенты —
+ * отдельная смена HeadlessRestaurant на виртуальных часах; смены идут параллельно
+ * в ForkJoinPool. Итог — CSV, строка на комбинацию. Все смены — на одном зерне,
+ * поэтому комбинации с равным числом клиентов получают одинаковый поток клиентов.
+ *
+ * Запуск: SweepRunner --cooks 1,2,4 --waiters 3,10 --kitchen 20 --queue 50
+ *         --clients 10000,100000 [--batch 1] [--tray 1] [--arrivals rush:200,party:2.5]
+ *         [--seed N] [--threads N] [--out sweep.csv]
+ * Длина переходов официантов — по свойству restaurant.walkScale, как у HeadlessRestaurant.
+ */
+public class SweepRunner {
+
+    private static final String HEADER = "cooks,waiters,kitchen_size,client_queue,clients,"
+        + "served,failed,rejected,timed_out,expired,turned_away,refused,"
+        + "served_per_min,avg_ms,p50_ms,p99_ms,p999_ms,max_ms,cook_minutes,walk_px_per_served,virtual_s,events,wall_ms";
+
+    /**
+     * Одна комбинация параметров.
+     */
+    public record Config(int cooks, int waiters, int kitchenSize, int clientQueue, int clients) {}
+
+    /**
+     * Итог одной смены: Result и перцентили сквозной задержки (мс виртуального времени).
+     */
+    public record Row(Config config, HeadlessRestaurant.Result result, long p50Ms, long p999Ms) {
+
+        /**
+         * Обслужено за минуту виртуального времени — до последней доставки
+         * или отказа, без возвращения официантов домой после неё.
+         */
+        public double servedPerMinute() {
+            if (result.lastOutcomeMs() == 0) {
+                return 0;
+            }
+            return result.served() * 60_000.0 / result.lastOutcomeMs();
+        }
+
+        public String toCsv() {
+            HeadlessRestaurant.Result r = result;
+            return String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.2f,%d,%d,%d,%d,%d,%.1f,%.1f,%d,%d,%d",
+                config.cooks(), config.waiters(), config.kitchenSize(), config.clientQueue(), config.clients(),
+                r.served(), r.rejected() + r.timedOut(), r.rejected(), r.timedOut(), r.expired(),
+                r.turnedAway(), r.refused(),
+                servedPerMinute(), r.avgLatencyMs(), p50Ms, r.p99LatencyMs(), p999Ms, r.maxLatencyMs(),
+                r.cookMinutes(), r.walkedPerServed(), r.virtualTimeMs() / 1000, r.events(), r.wallTimeMs());
+        }
+    }
+
+    private final List<Config> configs;
+    private final int batch;
+    private final RandomSource random;
+    private final int threads;
+    private int trayCapacity = 1;
+    private ArrivalProcess arrivals = ArrivalProcess.fromProperty();
+
+    public SweepRunner(List<Config> configs, int batch, RandomSource random, int threads) {
+        this.configs = configs;
+        this.batch = batch;
+        this.random = random;
+        this.threads = threads;
+    }
+
+    /**
+     * Поднос официантов на всех сменах, как HeadlessRestaurant.setTrayCapacity. Задаётся до run().
+     */
+    public void setTrayCapacity(int trayCapacity) {
+        this.trayCapacity = trayCapacity;
+    }
+
+    /**
+     * Процесс прихода на всех сменах, как HeadlessRestaurant.setArrivals. Задаётся до run().
+     */
+    public void setArrivals(ArrivalProcess arrivals) {
+        this.arrivals = arrivals;
+    }
+
+    /**
+     * Все комбинации сетки, в порядке перечисления параметров.
+     */
+    public static List<Config> grid(int[] cooks, int[] waiters, int[] kitchenSizes, int[] clientQueues,
+                                    int[] clients) {
+        List<Config> grid = new ArrayList<>();
+        for (int c : cooks) {
+            for (int w : waiters) {
+                for (int k : kitchenSizes) {
+                    for (int q : clientQueues) {
+                        for (int n : clients) {
+                            grid.add(new Config(c, w, k, q, n));
+                        }
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Прогнать все комбинации. Строки — в порядке сетки.
+     */
+    public List<Row> run() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Callable<Row>> tasks = new ArrayList<>(configs.size());
+            for (Config config : configs) {
+                tasks.add(() -> runOne(config));
+            }
+            List<Row> rows = new ArrayList<>(configs.size());
+            for (Future<Row> future : pool.invokeAll(tasks)) {
+                try {
+                    rows.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Ошибка в смене", e.getCause());
+                }
+            }
+            return rows;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Row runOne(Config config) {
+        HeadlessRestaurant restaurant = new HeadlessRestaurant(
+            config.cooks(), config.waiters(), config.kitchenSize(), config.clientQueue(), config.clients());
+        restaurant.setBatching(batch, Constants.BATCH_MAX_DELAY_MS);
+        restaurant.setRandom(random);
+        restaurant.setTrayCapacity(trayCapacity);
+        restaurant.setArrivals(arrivals);
+        HeadlessRestaurant.Result result = restaurant.run();
+        LatencyHistogram latencies = restaurant.getLatencies();
+        Row row = new Row(config, result,
+            TimeUnit.NANOSECONDS.toMillis(latencies.valueAtPercentile(50)),
+            TimeUnit.NANOSECONDS.toMillis(latencies.valueAtPercentile(99.9)));
+        Log.info(() -> "[ПЕРЕБОР] " + config + ": обслужено " + result.served()
+            + ", p99 " + result.p99LatencyMs() + " мс");
+        return row;
+    }
+
+    public static void writeCsv(Path path, List<Row> rows) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            for (Row row : rows) {
+                out.write(row.toCsv());
+                out.newLine();
+            }
+        }
+    }
+
+    // ==================== КОМАНДНАЯ СТРОКА ====================
+
+    private static int[] parseList(String option, String value) {
+        String[] parts = value.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                values[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(option + ": не число — " + parts[i]);
+            }
+            if (values[i] <= 0) {
+                throw new IllegalArgumentException(option + ": нужно положительное число — " + parts[i]);
+            }
+        }
+        return values;
+    }
+
+    private static long parseSeed(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--seed: не число — " + value);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Запуск: SweepRunner [--cooks 1,2,4] [--waiters 3,10] [--kitchen "
+            + Constants.KITCHEN_SIZE + "] [--queue " + Constants.CLIENT_QUEUE + "]");
+        System.err.println("                   [--clients 100000] [--batch 1] [--tray 1] [--arrivals classic]");
+        System.err.println("                   [--seed N] [--threads N] [--out sweep.csv]");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] cooks = {2};
+        int[] waiters = {3};
+        int[] kitchenSizes = {Constants.KITCHEN_SIZE};
+        int[] clientQueues = {Constants.CLIENT_QUEUE};
+        int[] clients = {100_000};
+        int batch = 1;
+        int tray = 1;
+        RandomSource random = RandomSource.create();
+        int threads = Runtime.getRuntime().availableProcessors();
+        ArrivalProcess arrivals = ArrivalProcess.fromProperty();
+        Path out = Path.of("sweep.csv");
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(option + ": нет значения");
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--cooks" -> cooks = parseList(option, value);
+                    case "--waiters" -> waiters = parseList(option, value);
+                    case "--kitchen" -> kitchenSizes = parseList(option, value);
+                    case "--queue" -> clientQueues = parseList(option, value);
+                    case "--clients" -> clients = parseList(option, value);
+                    case "--batch" -> batch = parseList(option, value)[0];
+                    case "--tray" -> tray = parseList(option, value)[0];
+                    case "--arrivals" -> arrivals = ArrivalProcess.parse(value);
+                    case "--seed" -> random = new RandomSource(parseSeed(value));
+                    case "--threads" -> threads = parseList(option, value)[0];
+                    case "--out" -> out = Path.of(value);
+                    default -> throw new IllegalArgumentException("неизвестный параметр " + option);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(2);
+        }
+
+        List<Config> configs = grid(cooks, waiters, kitchenSizes, clientQueues, clients);
+        Log.info("[ПЕРЕБОР] Комбинаций: " + configs.size() + ", потоков: " + threads + ", " + random);
+        long startedAt = System.currentTimeMillis();
+        SweepRunner runner = new SweepRunner(configs, batch, random, threads);
+        runner.setTrayCapacity(tray);
+        runner.setArrivals(arrivals);
+        List<Row> rows = runner.run();
+        writeCsv(out, rows);
+        Log.info("[ПЕРЕБОР] Готово за " + (System.currentTimeMillis() - startedAt) + " мс → " + out);
+        Log.flush();
+    }
+}
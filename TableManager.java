@@ -1,62 +1,197 @@
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Управление столами ресторана.
+ *
+ * Реестр мест: все места зала пронумерованы сквозным индексом,
+ * свободные места хранятся в битовых картах (отдельно обычные и VIP),
+ * а клиент → место — в хеш-таблице на примитивах.
+ * Посадка и поиск клиента не перебирают столы и не создают объектов.
+ *
+ * Место занимается CAS-ом по слову состояния Seat, поэтому два официанта
+ * не сядут на одно место. Битовые карты — лишь подсказка, где искать:
+ * после каждого изменения места её бит приводится в соответствие (syncBit).
+ * Поиск клиента идёт без блокировки и сверяется с владельцем места;
+ * под монитором только запись в хеш-таблицу клиентов.
+ *
+ * С планировкой зала (HallLayout) места ещё и разложены по SeatGrid:
+ * seatClientNear сажает клиента на ближайшее к официанту свободное место.
  */
 public final class TableManager {
 
-    private TableManager() {}
+    private final List<TableVisual> tables;
+    private final TableVisual.Seat[] seats;
+    private final AtomicLongArray freeRegular;
+    private final AtomicLongArray freeVip;
+    private final ClientIndex clientSeats;
+    private final RandomSource random;
+    private final AtomicLong draws = new AtomicLong(0);
+    private final SeatGrid grid;
+
+    // Фильтры поиска по сетке создаются один раз — поиск без аллокаций
+    private final SeatGrid.SeatFilter vipFilter;
+    private final SeatGrid.SeatFilter regularFilter;
+
+    public TableManager(List<TableVisual> tables) {
+        this(tables, RandomSource.create());
+    }
 
     /**
-     * Найти случайный свободный стол подходящего типа.
+     * Стартовые места поиска берутся из random: с одним зерном посадка повторяется.
      */
-    public static TableVisual findFreeTable(List<TableVisual> tables, boolean needVip) {
-        List<TableVisual> candidates = new ArrayList<>();
-        // Собираем подходящие столы
+    public TableManager(List<TableVisual> tables, RandomSource random) {
+        this(tables, random, null);
+    }
+
+    /**
+     * С планировкой зала: места индексируются сеткой для seatClientNear.
+     * Места layout должны идти в том же порядке, что и места tables.
+     */
+    public TableManager(List<TableVisual> tables, RandomSource random, HallLayout layout) {
+        this.tables = tables;
+        this.random = random;
+
+        int total = 0;
         for (TableVisual table : tables) {
-            if (needVip && !table.vipTable) {
-                continue;
-            }
-            if (!needVip && table.vipTable) {
-                continue;
-            }
-            if (hasFreeSeat(table)) {
-                candidates.add(table);
+            total += table.seats.size();
+        }
+
+        int words = Math.max(1, (total + 63) >>> 6);
+        this.seats = new TableVisual.Seat[total];
+        this.freeRegular = new AtomicLongArray(words);
+        this.freeVip = new AtomicLongArray(words);
+        this.clientSeats = new ClientIndex(total);
+        this.vipFilter = seat -> isFree(freeVip, seat);
+        this.regularFilter = seat -> isFree(freeRegular, seat);
+
+        int idx = 0;
+        for (TableVisual table : tables) {
+            for (TableVisual.Seat seat : table.seats) {
+                seats[idx] = seat;
+                seat.globalIndex = idx;
+                idx++;
             }
         }
-        // Выбираем случайный
-        if (!candidates.isEmpty()) {
-            return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        if (layout != null && layout.getSeatCount() != total) {
+            throw new IllegalArgumentException("Планировка на " + layout.getSeatCount()
+                + " мест, а за столами " + total);
+        }
+        if (layout != null) {
+            this.grid = new SeatGrid(layout);
+        } else {
+            this.grid = null;
+        }
+        resetAll();
+    }
+
+    /**
+     * Посадить клиента на случайное свободное место подходящего типа.
+     * VIP может сесть за обычный стол, если VIP-мест нет.
+     *
+     * @return занятое место или null, если мест нет
+     */
+    public TableVisual.Seat seatClient(int clientId, boolean vip) {
+        int idx = -1;
+        if (vip) {
+            idx = claimFree(freeVip, clientId, true);
+        }
+        if (idx < 0) {
+            idx = claimFree(freeRegular, clientId, vip);
+        }
+        return register(clientId, idx);
+    }
+
+    /**
+     * Посадить клиента на ближайшее к точке (x, y) свободное место —
+     * официанту идти меньше. VIP может сесть за обычный стол, если VIP-мест нет.
+     * Без планировки зала — как seatClient.
+     *
+     * @return занятое место или null, если мест нет
+     */
+    public TableVisual.Seat seatClientNear(int clientId, boolean vip, double x, double y) {
+        if (grid == null) {
+            return seatClient(clientId, vip);
+        }
+        int idx = -1;
+        if (vip) {
+            idx = claimNearest(vipFilter, clientId, true, x, y);
+        }
+        if (idx < 0) {
+            idx = claimNearest(regularFilter, clientId, vip, x, y);
+        }
+        return register(clientId, idx);
+    }
+
+    /**
+     * Как seatClientNear, но место — сквозным индексом (для Waiter.Seating).
+     *
+     * @return индекс места или -1, если мест нет
+     */
+    public int seatIndexNear(int clientId, boolean vip, double x, double y) {
+        TableVisual.Seat seat = seatClientNear(clientId, vip, x, y);
+        if (seat == null) {
+            return -1;
+        }
+        return seat.globalIndex;
+    }
+
+    private TableVisual.Seat register(int clientId, int idx) {
+        if (idx < 0) {
+            return null;
+        }
+        synchronized (clientSeats) {
+            clientSeats.put(clientId, idx);
         }
-        
-        // VIP может сесть за обычный стол
+        return seats[idx];
+    }
+
+    /**
+     * Найти случайный стол подходящего типа, где есть свободное место.
+     * Место при этом не занимается — для посадки используйте seatClient.
+     */
+    public TableVisual findFreeTable(boolean needVip) {
+        int idx = -1;
         if (needVip) {
-            candidates.clear();
-            for (TableVisual table : tables) {
-                if (!table.vipTable && hasFreeSeat(table)) {
-                    candidates.add(table);
-                }
-            }
-            if (!candidates.isEmpty()) {
-                return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
-            }
+            idx = findFree(freeVip, randomStart());
+        }
+        if (idx < 0) {
+            idx = findFree(freeRegular, randomStart());
+        }
+        if (idx < 0) {
+            return null;
         }
-        
-        return null;
+        return seats[idx].table;
+    }
+
+    /**
+     * Найти стол подходящего типа с ближайшим к точке (x, y) свободным местом.
+     * Место при этом не занимается. Без планировки зала — как findFreeTable.
+     */
+    public TableVisual findNearestFreeTable(boolean needVip, double x, double y) {
+        if (grid == null) {
+            return findFreeTable(needVip);
+        }
+        int idx = -1;
+        if (needVip) {
+            idx = grid.nearest(x, y, vipFilter);
+        }
+        if (idx < 0) {
+            idx = grid.nearest(x, y, regularFilter);
+        }
+        if (idx < 0) {
+            return null;
+        }
+        return seats[idx].table;
     }
 
     /**
      * Проверить есть ли свободное место за столом.
      */
     public static boolean hasFreeSeat(TableVisual table) {
-        for (TableVisual.Seat seat : table.seats) {
-            if (seat.isFree()) {
-                return true;
-            }
-        }
-        return false;
+        return findFreeSeatIndex(table) >= 0;
     }
 
     /**
@@ -74,70 +209,276 @@ public final class TableManager {
     /**
      * Найти место клиента.
      */
-    public static TableVisual.Seat findSeatByClient(List<TableVisual> tables, int clientId) {
-        for (TableVisual table : tables) {
-            for (TableVisual.Seat seat : table.seats) {
-                if (seat.clientId == clientId) {
-                    return seat;
-                }
+    public TableVisual.Seat findSeatByClient(int clientId) {
+        // Чтение без блокировки; во время сдвига в таблице можно промахнуться —
+        // тогда повторяем под монитором
+        int idx = clientSeats.get(clientId);
+        if (idx < 0 || seats[idx].clientId() != clientId) {
+            synchronized (clientSeats) {
+                idx = clientSeats.get(clientId);
             }
         }
-        return null;
+        if (idx < 0 || seats[idx].clientId() != clientId) {
+            return null;
+        }
+        return seats[idx];
     }
 
     /**
      * Найти стол клиента.
      */
-    public static TableVisual findTableByClient(List<TableVisual> tables, int clientId) {
-        for (TableVisual table : tables) {
-            for (TableVisual.Seat seat : table.seats) {
-                if (seat.clientId == clientId) {
-                    return table;
-                }
-            }
+    public TableVisual findTableByClient(int clientId) {
+        TableVisual.Seat seat = findSeatByClient(clientId);
+        if (seat == null) {
+            return null;
         }
-        return null;
+        return seat.table;
     }
 
     /**
      * Установить статус "ожидает еду".
      */
-    public static void setWaitingForFood(List<TableVisual> tables, int clientId) {
-        TableVisual.Seat seat = findSeatByClient(tables, clientId);
+    public void setWaitingForFood(int clientId) {
+        TableVisual.Seat seat = findSeatByClient(clientId);
         if (seat != null) {
-            seat.waitingForFood = true;
+            seat.markWaitingForFood(clientId);
         }
     }
 
     /**
      * Установить статус "еда доставлена".
      */
-    public static void setHasFood(List<TableVisual> tables, int clientId) {
-        TableVisual.Seat seat = findSeatByClient(tables, clientId);
+    public void setHasFood(int clientId) {
+        TableVisual.Seat seat = findSeatByClient(clientId);
         if (seat != null) {
-            seat.hasFood = true;
-            seat.waitingForFood = false;
+            seat.markHasFood(clientId);
         }
     }
 
     /**
      * Освободить место клиента.
+     * Если место уже занял другой клиент, ничего не меняется.
      */
-    public static void releaseSeat(List<TableVisual> tables, int clientId) {
-        TableVisual.Seat seat = findSeatByClient(tables, clientId);
-        if (seat != null) {
-            seat.reset();
+    public void releaseSeat(int clientId) {
+        TableVisual.Seat seat = findSeatByClient(clientId);
+        if (seat == null || !seat.release(clientId)) {
+            return;
+        }
+        synchronized (clientSeats) {
+            clientSeats.remove(clientId);
         }
+        syncBit(seat.globalIndex);
     }
 
     /**
      * Сбросить все столы.
      */
-    public static void resetAll(List<TableVisual> tables) {
-        for (TableVisual table : tables) {
-            for (TableVisual.Seat seat : table.seats) {
-                seat.reset();
+    public void resetAll() {
+        synchronized (clientSeats) {
+            clientSeats.clear();
+        }
+        for (int i = 0; i < seats.length; i++) {
+            seats[i].reset();
+            syncBit(i);
+        }
+    }
+
+    public List<TableVisual> getTables() {
+        return tables;
+    }
+
+    public int getSeatCount() {
+        return seats.length;
+    }
+
+    private AtomicLongArray freeBits(TableVisual.Seat seat) {
+        if (seat.table.vipTable) {
+            return freeVip;
+        }
+        return freeRegular;
+    }
+
+    private int randomStart() {
+        if (seats.length == 0) {
+            return 0;
+        }
+        long value = random.hash(RandomSource.Stream.TABLES, draws.getAndIncrement());
+        return (int) Math.floorMod(value, (long) seats.length);
+    }
+
+    /**
+     * Занять первое свободное место, начиная со случайной позиции.
+     * Проигравший гонку за место просто ищет дальше.
+     */
+    private int claimFree(AtomicLongArray bits, int clientId, boolean vip) {
+        int start = randomStart();
+        int words = bits.length();
+        int word = start >>> 6;
+        long mask = -1L << (start & 63);
+
+        for (int n = 0; n <= words; n++) {
+            long free = bits.get(word) & mask;
+            while (free != 0) {
+                int idx = (word << 6) + Long.numberOfTrailingZeros(free);
+                boolean claimed = seats[idx].claim(clientId, vip);
+                syncBit(idx);
+                if (claimed) {
+                    return idx;
+                }
+                free &= free - 1;
+            }
+            mask = -1L;
+            word++;
+            if (word == words) {
+                word = 0;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Занять ближайшее к (x, y) свободное место. Проигранная гонка снимает бит
+     * места (syncBit), так что следующий поиск его уже не увидит.
+     */
+    private int claimNearest(SeatGrid.SeatFilter filter, int clientId, boolean vip, double x, double y) {
+        while (true) {
+            int idx = grid.nearest(x, y, filter);
+            if (idx < 0) {
+                return -1;
+            }
+            boolean claimed = seats[idx].claim(clientId, vip);
+            syncBit(idx);
+            if (claimed) {
+                return idx;
+            }
+        }
+    }
+
+    private static boolean isFree(AtomicLongArray bits, int idx) {
+        return (bits.get(idx >>> 6) & (1L << (idx & 63))) != 0;
+    }
+
+    private int findFree(AtomicLongArray bits, int start) {
+        int words = bits.length();
+        int word = start >>> 6;
+        long mask = -1L << (start & 63);
+
+        for (int n = 0; n <= words; n++) {
+            long free = bits.get(word) & mask;
+            if (free != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(free);
+            }
+            mask = -1L;
+            word++;
+            if (word == words) {
+                word = 0;
             }
         }
+        return -1;
+    }
+
+    /**
+     * Привести бит свободного места к фактическому состоянию места.
+     * Повторяем, пока место не перестанет меняться у нас под руками:
+     * последний изменивший место всегда оставит верный бит.
+     */
+    private void syncBit(int idx) {
+        TableVisual.Seat seat = seats[idx];
+        AtomicLongArray bits = freeBits(seat);
+        int word = idx >>> 6;
+        long bit = 1L << (idx & 63);
+
+        while (true) {
+            boolean free = seat.isFree();
+            long current;
+            long updated;
+            do {
+                current = bits.get(word);
+                if (free) {
+                    updated = current | bit;
+                } else {
+                    updated = current & ~bit;
+                }
+            } while (current != updated && !bits.compareAndSet(word, current, updated));
+
+            if (seat.isFree() == free) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Хеш-таблица clientId → индекс места на примитивах.
+     * Открытая адресация, удаление со сдвигом (без «надгробий»),
+     * поэтому не деградирует за миллионы посадок.
+     */
+    private static final class ClientIndex {
+        private static final int EMPTY = 0;
+
+        private final int[] keys;
+        private final int[] values;
+        private final int mask;
+
+        ClientIndex(int seatCount) {
+            int capacity = Integer.highestOneBit(Math.max(4, seatCount * 2 - 1)) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(int clientId, int seat) {
+            int slot = slot(clientId);
+            while (keys[slot] != EMPTY && keys[slot] != clientId) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = clientId;
+            values[slot] = seat;
+        }
+
+        int get(int clientId) {
+            int slot = slot(clientId);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == clientId) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int remove(int clientId) {
+            int slot = slot(clientId);
+            while (keys[slot] != clientId) {
+                if (keys[slot] == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int seat = values[slot];
+
+            // Сдвигаем следующие элементы цепочки на освободившееся место
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = EMPTY;
+            return seat;
+        }
+
+        void clear() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int slot(int clientId) {
+            int h = clientId * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
     }
 }
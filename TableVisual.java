@@ -1,5 +1,6 @@
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Визуальное представление стола в ресторане.
@@ -24,7 +25,7 @@ public class TableVisual {
     public void setCapacity(int capacity) {
         seats.clear();
         for (int i = 0; i < capacity; i++) {
-            seats.add(new Seat());
+            seats.add(new Seat(this, i));
         }
     }
 
@@ -35,22 +36,110 @@ public class TableVisual {
 
     /**
      * Место за столом.
+     *
+     * Всё состояние места — одно слово: клиент в младших 32 битах, выше флаги.
+     * Занять, освободить и сменить статус можно только CAS-ом
+     * и только от имени текущего клиента — устаревшая задача не затрёт нового.
      */
     public static class Seat {
-        public int clientId = 0;
-        public boolean vip = false;
-        public boolean waitingForFood = false;
-        public boolean hasFood = false;
+        private static final long CLIENT_MASK = 0xFFFF_FFFFL;
+        private static final long VIP = 1L << 32;
+        private static final long WAITING_FOR_FOOD = 1L << 33;
+        private static final long HAS_FOOD = 1L << 34;
+
+        public final TableVisual table;
+        public final int index;
+        public int globalIndex = -1;
+        private final AtomicLong state = new AtomicLong(0);
+
+        public Seat(TableVisual table, int index) {
+            this.table = table;
+            this.index = index;
+        }
+
+        /**
+         * Занять свободное место.
+         */
+        public boolean claim(int clientId, boolean vip) {
+            long claimed = clientId & CLIENT_MASK;
+            if (vip) {
+                claimed |= VIP;
+            }
+            return state.compareAndSet(0, claimed);
+        }
+
+        /**
+         * Освободить место, если его занимает этот клиент.
+         */
+        public boolean release(int clientId) {
+            while (true) {
+                long current = state.get();
+                if (clientId(current) != clientId || clientId == 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, 0)) {
+                    return true;
+                }
+            }
+        }
+
+        public boolean markWaitingForFood(int clientId) {
+            return update(clientId, WAITING_FOR_FOOD, 0);
+        }
+
+        public boolean markHasFood(int clientId) {
+            return update(clientId, HAS_FOOD, WAITING_FOR_FOOD);
+        }
+
+        private boolean update(int clientId, long set, long clear) {
+            while (true) {
+                long current = state.get();
+                if (clientId(current) != clientId || clientId == 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, (current | set) & ~clear)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Снимок состояния — для согласованного чтения всех полей сразу.
+         */
+        public long state() {
+            return state.get();
+        }
+
+        public int clientId() {
+            return clientId(state.get());
+        }
 
         public boolean isFree() {
-            return clientId == 0;
+            return state.get() == 0;
         }
 
         public void reset() {
-            clientId = 0;
-            vip = false;
-            waitingForFood = false;
-            hasFood = false;
+            state.set(0);
+        }
+
+        public static int clientId(long state) {
+            return (int) (state & CLIENT_MASK);
+        }
+
+        public static boolean isFree(long state) {
+            return state == 0;
+        }
+
+        public static boolean isVip(long state) {
+            return (state & VIP) != 0;
+        }
+
+        public static boolean isWaitingForFood(long state) {
+            return (state & WAITING_FOR_FOOD) != 0;
+        }
+
+        public static boolean hasFood(long state) {
+            return (state & HAS_FOOD) != 0;
         }
     }
 }
@@ -0,0 +1,127 @@
+/**
+ * Время переходов официанта по планировке зала.
+ *
+ * Без окна о прибытии некому сообщить, поэтому переход длится столько,
+ * сколько официант шёл бы по прямой со скоростью анимации
+ * (WAITER_SPEED пикселей за ANIMATION_INTERVAL_MS), умноженной на scale.
+ * Каждый официант помнит, где стоит (Walker), поэтому длина перехода зависит
+ * от того, откуда он идёт: от места к стойке, от стойки к месту, домой.
+ */
+public final class TravelModel {
+
+    private final HallLayout layout;
+    private final double msPerPixel;
+
+    /**
+     * @param scale множитель времени переходов (1 — как в окне, 0.5 — вдвое быстрее)
+     */
+    public TravelModel(HallLayout layout, double scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Множитель переходов должен быть положительным: " + scale);
+        }
+        this.layout = layout;
+        this.msPerPixel = scale * Constants.ANIMATION_INTERVAL_MS / Constants.WAITER_SPEED;
+    }
+
+    /**
+     * Множитель из свойства restaurant.walkScale или 0, если оно не задано.
+     */
+    public static double scaleFromProperty() {
+        String value = System.getProperty("restaurant.walkScale");
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+            Log.warn("[ЗАЛ] restaurant.walkScale не число: " + value);
+            return 0;
+        }
+    }
+
+    public Walker walker(int waiterId) {
+        return new Walker(waiterId);
+    }
+
+    /**
+     * Средний переход между стойкой и местом — оценка для контроллера допуска.
+     */
+    public long averageLegMs() {
+        int seats = layout.getSeatCount();
+        if (seats == 0) {
+            return 0;
+        }
+        double total = 0;
+        int homeX = layout.getHomeX(1);
+        for (int seat = 0; seat < seats; seat++) {
+            total += distance(homeX, layout.getCounterY(), layout.getSeatX(seat), layout.getSeatApproachY(seat));
+        }
+        return Math.round(total / seats * msPerPixel);
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Положение одного официанта. Не потокобезопасен: переходы официанта
+     * идут по очереди в одном потоке (или одной цепочке маршрута).
+     */
+    public final class Walker {
+        private final int homeX;
+        private double x;
+        private double y;
+        private double walked;
+
+        private Walker(int waiterId) {
+            this.homeX = layout.getHomeX(waiterId);
+            this.x = homeX;
+            this.y = layout.getHomeY();
+        }
+
+        /**
+         * Сколько миллисекунд займёт переход, начатый событием event,
+         * и переставить официанта в точку назначения. seat — место клиента,
+         * назначенное при посадке (для TO_TABLE и DELIVER; -1 — места нет).
+         * События без перемещения (WAIT, DONE, FAIL) стоят 0.
+         */
+        public long legMs(WaiterEvent event, int seat) {
+            double toX;
+            double toY;
+            switch (event) {
+                case TO_TABLE, DELIVER -> {
+                    if (seat < 0) {
+                        return 0;
+                    }
+                    toX = layout.getSeatX(seat);
+                    toY = layout.getSeatApproachY(seat);
+                }
+                case TO_KITCHEN -> {
+                    toX = homeX;
+                    toY = layout.getCounterY();
+                }
+                case IDLE, RETURN -> {
+                    toX = homeX;
+                    toY = layout.getHomeY();
+                }
+                default -> {
+                    return 0;
+                }
+            }
+            double leg = distance(x, y, toX, toY);
+            x = toX;
+            y = toY;
+            walked += leg;
+            return Math.round(leg * msPerPixel);
+        }
+
+        /**
+         * Пройдено с начала смены, пикселей.
+         */
+        public double getWalked() {
+            return walked;
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -7,25 +8,72 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * Каждый официант работает в отдельном потоке.
  * Цикл работы: взять заказ → посадить клиента → отнести на кухню → 
  *              дождаться готовности → доставить клиенту.
+ *
+ * Со стойкой выдачи (DeliveryPass) официант свой заказ не ждёт: отдал на кухню
+ * и свободен, а готовые заказы — любые — разносит с подноса по нескольку за выход.
  */
 public class Waiter implements Runnable {
     
     private final int id;
     private final BlockingDeque<ClientRequest> clientQueue;
     private final Kitchen kitchen;
+    private final OrderStore orders;
     private final AtomicBoolean working = new AtomicBoolean(true);
     
-    private WaiterCallback callback;
+    private WaiterListener listener;
+    private AdmissionController admission;
+    private WaiterEvent lastEvent;
+    private int lastSeat;
+    private Seating seating;
     private volatile CompletableFuture<Void> arrivedSignal;
+    private TravelModel.Walker walker;
+    private ScheduledExecutorService timer;
+    private DeliveryPass pass;
+    private Order[] tray;
+    private boolean atCounter;
 
-    public Waiter(int id, BlockingDeque<ClientRequest> clientQueue, Kitchen kitchen) {
+    public Waiter(int id, BlockingDeque<ClientRequest> clientQueue, Kitchen kitchen, OrderStore orders) {
         this.id = id;
         this.clientQueue = clientQueue;
         this.kitchen = kitchen;
+        this.orders = orders;
     }
 
-    public void setCallback(WaiterCallback callback) {
-        this.callback = callback;
+    public void setListener(WaiterListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Контроллер допуска у входа. Без него сажаются все.
+     */
+    public void setAdmission(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Кто выбирает место клиенту. Место запоминается в заказе: по нему идут
+     * переходы TravelModel и маршрут подноса. Без него у клиентов нет мест. Задаётся до run().
+     */
+    public void setSeating(Seating seating) {
+        this.seating = seating;
+    }
+
+    /**
+     * Переходы по времени из TravelModel вместо сигнала аниматора:
+     * прибытие отмечает timer через рассчитанное время. Задаётся до run().
+     */
+    public void setTravel(TravelModel.Walker walker, ScheduledExecutorService timer) {
+        this.walker = walker;
+        this.timer = timer;
+    }
+
+    /**
+     * Разнос с подноса: готовые заказы берутся со стойки pass, по нескольку за выход.
+     * Без стойки официант ждёт у кухни и несёт только свой заказ. Задаётся до run().
+     */
+    public void setDeliveryPass(DeliveryPass pass) {
+        this.pass = pass;
+        this.tray = new Order[pass.getTrayCapacity()];
     }
 
     public int getId() {
@@ -35,9 +83,9 @@ public class Waiter implements Runnable {
     @Override
     public void run() {
         Thread.currentThread().setName("Официант-" + id);
-        Constants.log("[Официант-" + id + "] Начал смену");
+        Log.debug(() -> "[Официант-" + id + "] Начал смену");
 
-        while (working.get() || !clientQueue.isEmpty()) {
+        while (working.get() || !clientQueue.isEmpty() || (pass != null && pass.hasWork())) {
             try {
                 processNextClient();
             } catch (InterruptedException e) {
@@ -46,72 +94,229 @@ public class Waiter implements Runnable {
             }
         }
         
-        Constants.log("[Официант-" + id + "] Закончил смену");
+        Log.debug(() -> "[Официант-" + id + "] Закончил смену");
     }
 
     private void processNextClient() throws InterruptedException {
-        sendState("IDLE");
+        sendEvent(WaiterEvent.IDLE, 0, false);
+
+        // Готовая еда важнее новых клиентов
+        if (pass != null && !pass.isEmpty()) {
+            long busySince = System.nanoTime();
+            try {
+                deliverTray();
+            } finally {
+                Metrics.waiterBusy(System.nanoTime() - busySince);
+            }
+            return;
+        }
         
         ClientRequest request = clientQueue.poll(Constants.WAITER_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
         if (request == null) {
             return;
         }
 
-        Constants.log("[Официант-" + id + "] Принял: " + request);
+        if (!admit(request)) {
+            return;
+        }
+        Log.debug(() -> "[Официант-" + id + "] Принял: " + request);
 
-        // Ведём клиента к столу
-        String vipFlag;
-        if (request.vip()) {
-            vipFlag = "1";
-        } else {
-            vipFlag = "0";
+        long busySince = System.nanoTime();
+        try {
+            serve(request);
+        } finally {
+            Metrics.waiterBusy(System.nanoTime() - busySince);
         }
-        sendState("TO_TABLE:" + request.clientId() + ":" + vipFlag);
+    }
+
+    private void serve(ClientRequest request) {
+        // Ведём клиента к столу
+        int clientId = request.clientId();
+        int seat = seat(request);
+        sendEvent(WaiterEvent.TO_TABLE, clientId, request.vip(), seat);
         waitForArrival();
 
         // Создаём заказ и несём на кухню
-        Order order = new Order(request.clientId(), request.dish(), id, request.vip());
-        sendState("TO_KITCHEN:" + request.clientId());
+        Order order = orders.create(request, seat, id, System.currentTimeMillis());
+        EventJournal.order(EventJournal.Type.ORDER_CREATED, order, order.getCreatedNanos(), 0);
+        sendEvent(WaiterEvent.TO_KITCHEN, clientId, request.vip());
         waitForArrival();
 
         // Отдаём заказ на кухню
-        if (!kitchen.addOrder(order)) {
-            Constants.log("[Официант-" + id + "] Кухня отклонила заказ клиента " + request.clientId() + " — клиент уходит");
-            sendState("FAIL:" + request.clientId());
-            sendState("RETURN:" + request.clientId());
+        boolean accepted = kitchen.addOrder(order);
+        if (admission != null) {
+            admission.handedOver();
+        }
+        if (!accepted) {
+            order.releaseWaiter();
+            Log.debug(() -> "[Официант-" + id + "] Кухня отклонила заказ клиента " + request.clientId() + " — клиент уходит");
+            sendEvent(WaiterEvent.FAIL, clientId, request.vip());
+            sendEvent(WaiterEvent.RETURN, clientId, request.vip());
             waitForArrival();
             return;
         }
+        if (pass != null) {
+            // Заказ сам ляжет на стойку; пока у стойки — захватить то, что уже готово
+            pass.expect(order);
+            atCounter = true;
+            if (!deliverTray()) {
+                sendEvent(WaiterEvent.RETURN, clientId, request.vip());
+                waitForArrival();
+                atCounter = false;
+            }
+            return;
+        }
         // Ждём готовности
-        sendState("WAIT:" + request.clientId());
+        sendEvent(WaiterEvent.WAIT, clientId, request.vip());
         
-        try {
-            Order ready = order.getReady()
-                .orTimeout(Constants.ORDER_TIMEOUT_SEC, TimeUnit.SECONDS)
-                .join();
+        if (order.await(TimeUnit.SECONDS.toNanos(Constants.ORDER_TIMEOUT_SEC))) {
             // Несём еду клиенту
-            sendState("DELIVER:" + request.clientId());
+            order.markPickedUp();
+            EventJournal.order(EventJournal.Type.PICKED_UP, order, order.getPickedUpNanos(), 0);
+            sendEvent(WaiterEvent.DELIVER, clientId, request.vip(), seat);
             waitForArrival();
-            Constants.log("[Официант-" + id + "] Доставил: " + ready.getDish() + 
-                " клиенту " + ready.getClientId() + " (" + ready.getWaitTime() + " мс)");
+            Metrics.recordDelivered(order);
+            long waitTime = order.getWaitTime();
+            order.releaseWaiter();
+            Log.debug(() -> "[Официант-" + id + "] Доставил: " + request.dish() +
+                " клиенту " + clientId + " (" + waitTime + " мс)");
 
-            sendState("DONE:" + request.clientId());
+            sendEvent(WaiterEvent.DONE, clientId, request.vip());
 
             // Возвращаемся на базу
-            sendState("RETURN:" + request.clientId());
+            sendEvent(WaiterEvent.RETURN, clientId, request.vip());
+            waitForArrival();
+
+        } else {
+            order.releaseWaiter();
+            Log.debug(() -> "[Официант-" + id + "] Таймаут заказа для клиента " + request.clientId() + " — клиент уходит");
+            sendEvent(WaiterEvent.FAIL, clientId, request.vip());
+            sendEvent(WaiterEvent.RETURN, clientId, request.vip());
+            waitForArrival();
+        }
+    }
+
+    /**
+     * Взять со стойки до tray.length заказов и разнести за один выход:
+     * самый старый первым, дальше по ближайшим местам в пределах задержки
+     * (RoutePlanner.planTrip), затем домой.
+     *
+     * @return false, если стойка пуста
+     */
+    private boolean deliverTray() {
+        int taken = pass.take(tray);
+        if (taken == 0) {
+            return false;
+        }
+        if (!atCounter) {
+            sendEvent(WaiterEvent.TO_KITCHEN, 0, false);
             waitForArrival();
+        }
 
-        } catch (CompletionException e) {
-            Constants.log("[Официант-" + id + "] Таймаут заказа для клиента " + request.clientId() + " — клиент уходит");
-            sendState("FAIL:" + request.clientId());
-            sendState("RETURN:" + request.clientId());
+        // Не дождавшиеся кухни — отказ клиенту, остальные — на поднос
+        int stops = 0;
+        for (int i = 0; i < taken; i++) {
+            Order order = tray[i];
+            tray[i] = null;
+            if (!order.isReady()) {
+                int clientId = order.getClientId();
+                boolean vip = order.isVip();
+                order.releaseWaiter();
+                Log.debug(() -> "[Официант-" + id + "] Таймаут заказа для клиента " + clientId + " — клиент уходит");
+                sendEvent(WaiterEvent.FAIL, clientId, vip);
+                continue;
+            }
+            tray[stops++] = order;
+        }
+
+        // Не уложившиеся в предел задержки — обратно на стойку, следующему выходу
+        HallLayout layout = pass.getLayout();
+        int planned = RoutePlanner.planTrip(layout, id, tray, stops);
+        pass.putBack(tray, planned, stops);
+        Arrays.fill(tray, planned, stops, null);
+        stops = planned;
+        for (int i = 0; i < stops; i++) {
+            tray[i].markPickedUp();
+            EventJournal.order(EventJournal.Type.PICKED_UP, tray[i], tray[i].getPickedUpNanos(), 0);
+        }
+        int lastClient = 0;
+        boolean lastVipClient = false;
+        for (int i = 0; i < stops; i++) {
+            Order order = tray[i];
+            tray[i] = null;
+            int clientId = order.getClientId();
+            boolean vip = order.isVip();
+            sendEvent(WaiterEvent.DELIVER, clientId, vip, order.getSeat());
             waitForArrival();
+            Metrics.recordDelivered(order);
+            Dish dish = order.getDish();
+            long waitTime = order.getWaitTime();
+            order.releaseWaiter();
+            Log.debug(() -> "[Официант-" + id + "] Доставил: " + dish +
+                " клиенту " + clientId + " (" + waitTime + " мс)");
+            sendEvent(WaiterEvent.DONE, clientId, vip);
+            lastClient = clientId;
+            lastVipClient = vip;
+        }
+        int carried = stops;
+        Log.debug(() -> "[Официант-" + id + "] Выход с подносом: " + carried + " заказ(ов)");
+
+        sendEvent(WaiterEvent.RETURN, lastClient, lastVipClient);
+        waitForArrival();
+        atCounter = false;
+        return true;
+    }
+
+    private int seat(ClientRequest request) {
+        if (seating == null) {
+            return -1;
+        }
+        return seating.seat(request.clientId(), request.vip(), id);
+    }
+
+    /**
+     * Спросить контроллер допуска. Отложенный клиент возвращается в начало очереди,
+     * а официант выжидает ADMISSION_DEFER_MS, пока кухня разгрузится.
+     */
+    private boolean admit(ClientRequest request) throws InterruptedException {
+        if (admission == null) {
+            return true;
+        }
+        switch (admission.admit(request, clientQueue, kitchen.getQueueSize(), kitchen.getCookCount())) {
+            case ADMIT -> {
+                return true;
+            }
+            case DEFER -> {
+                Thread.sleep(Constants.ADMISSION_DEFER_MS);
+                return false;
+            }
+            default -> {
+                Log.debug(() -> "[Официант-" + id + "] Отказ у входа: " + request);
+                return false;
+            }
         }
     }
 
-    private void sendState(String state) {
-        if (callback != null) {
-            callback.onStateChanged(id, state);
+    /**
+     * Сообщить о переходе. IDLE отправляется только при смене состояния,
+     * а не на каждый опрос очереди.
+     */
+    private void sendEvent(WaiterEvent event, int clientId, boolean vip) {
+        sendEvent(event, clientId, vip, -1);
+    }
+
+    /**
+     * Переход к месту seat (TO_TABLE, DELIVER).
+     */
+    private void sendEvent(WaiterEvent event, int clientId, boolean vip, int seat) {
+        if (event == WaiterEvent.IDLE && lastEvent == WaiterEvent.IDLE) {
+            return;
+        }
+        lastEvent = event;
+        lastSeat = seat;
+        EventJournal.waiter(event, id, clientId, vip, System.nanoTime(), 0);
+        if (listener != null) {
+            listener.onEvent(id, event, clientId, vip);
         }
     }
 
@@ -121,16 +326,27 @@ public class Waiter implements Runnable {
         }
     }
 
+    /**
+     * Дождаться конца перехода, начатого последним событием.
+     */
     private void waitForArrival() {
-        arrivedSignal = new CompletableFuture<>();
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        arrivedSignal = signal;
+        long timeoutMs = TimeUnit.SECONDS.toMillis(Constants.WAITER_ARRIVAL_TIMEOUT_SEC);
+        if (walker != null) {
+            long walkMs = walker.legMs(lastEvent, lastSeat);
+            timer.schedule(() -> signal.complete(null), walkMs, TimeUnit.MILLISECONDS);
+            // Длинный переход не должен упираться в таймаут: ждём его целиком и ещё запас
+            timeoutMs += walkMs;
+        }
         try {
-            arrivedSignal.get(Constants.WAITER_ARRIVAL_TIMEOUT_SEC, TimeUnit.SECONDS);
+            signal.get(timeoutMs, TimeUnit.MILLISECONDS);
         } catch (TimeoutException e) {
-            Constants.log("[Официант-" + id + "] Таймаут движения");
+            Log.warn(() -> "[Официант-" + id + "] Таймаут движения");
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } catch (ExecutionException e) {
-            Constants.log("[Официант-" + id + "] Ошибка: " + e.getMessage());
+            Log.warn("[Официант-" + id + "] Ошибка: " + e.getMessage());
         }
     }
 
@@ -141,7 +357,11 @@ public class Waiter implements Runnable {
         }
     }
 
-    public record ClientRequest(int clientId, Dish dish, boolean vip) {
+    /**
+     * Клиент у входа. Время готовки его блюда (без VIP-множителя) выбирается
+     * сразу при появлении — нагрузка не зависит от того, кто и когда готовит.
+     */
+    public record ClientRequest(int clientId, Dish dish, boolean vip, int cookTime) {
         @Override
         public String toString() {
             String prefix;
@@ -155,9 +375,21 @@ public class Waiter implements Runnable {
     }
 
     /**
-     * Callback для уведомления GUI о состоянии официанта.
+     * Слушатель переходов официанта (GUI, канал событий).
+     * Только примитивы и enum — без строк и аллокаций.
+     */
+    public interface WaiterListener {
+        void onEvent(int waiterId, WaiterEvent event, int clientId, boolean vip);
+    }
+
+    /**
+     * Выбор места для клиента, которого ведёт официант waiterId:
+     * без окна — HallLayout.seatFor, в окне — свободное место из TableManager.
      */
-    public interface WaiterCallback {
-        void onStateChanged(int waiterId, String state);
+    public interface Seating {
+        /**
+         * @return сквозной индекс места HallLayout или -1, если мест нет
+         */
+        int seat(int clientId, boolean vip, int waiterId);
     }
 }
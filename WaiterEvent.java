@@ -0,0 +1,22 @@
+/**
+ * Переходы официанта, о которых сообщается слушателю.
+ */
+public enum WaiterEvent {
+    IDLE,
+    TO_TABLE,
+    TO_KITCHEN,
+    WAIT,
+    DELIVER,
+    DONE,
+    FAIL,
+    RETURN;
+
+    private static final WaiterEvent[] VALUES = values();
+
+    /**
+     * Событие по порядковому номеру без копирования массива values().
+     */
+    public static WaiterEvent of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
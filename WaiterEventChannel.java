@@ -0,0 +1,151 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Канал событий официантов.
+ *
+ * Официанты публикуют события в заранее выделенное кольцо long-ов
+ * (официант, событие, клиент, VIP упакованы в одно число) —
+ * без строк, разбора и аллокаций. Один потребитель (аниматор GUI)
+ * забирает их пачкой через drain и обрабатывает в своём потоке.
+ *
+ * Если кольцо заполнено, официант ждёт потребителя. Сбросить можно только
+ * IDLE и WAIT — они меняют лишь картинку. Переходы и DONE/FAIL несут
+ * состояние мест и сигнал прибытия: без них официант ждал бы
+ * WAITER_ARRIVAL_TIMEOUT_SEC, поэтому они ждут места, пока канал открыт.
+ */
+public class WaiterEventChannel implements Waiter.WaiterListener {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final long FULL_WAIT_NS = 10_000_000;
+    private static final long FULL_PARK_NS = 100_000;
+
+    // Упаковка: [waiterId:26][vip:1][event+1:5][clientId:32]
+    private static final int CLIENT_BITS = 32;
+    private static final int EVENT_BITS = 5;
+    private static final long CLIENT_MASK = 0xFFFF_FFFFL;
+    private static final long EVENT_MASK = (1L << EVENT_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private volatile long tail = 0;
+    private volatile boolean closed;
+
+    public WaiterEventChannel() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity ёмкость кольца, округляется вверх до степени двойки
+     */
+    public WaiterEventChannel(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void onEvent(int waiterId, WaiterEvent event, int clientId, boolean vip) {
+        long packed = pack(waiterId, event, clientId, vip);
+        long deadline = 0;
+        long seq;
+        while (true) {
+            seq = head.get();
+            if (seq - tail < slots.length()) {
+                if (head.compareAndSet(seq, seq + 1)) {
+                    break;
+                }
+                continue;
+            }
+            // Кольцо заполнено — ждём потребителя; сбрасываем, только если событие
+            // не несёт состояния или потребителя уже нет
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            long now = System.nanoTime();
+            if (deadline == 0) {
+                deadline = now + FULL_WAIT_NS;
+            } else if (now > deadline) {
+                if (isDroppable(event)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(this, FULL_PARK_NS);
+                continue;
+            }
+            Thread.yield();
+        }
+        slots.set((int) (seq & mask), packed);
+    }
+
+    private static boolean isDroppable(WaiterEvent event) {
+        return event == WaiterEvent.IDLE || event == WaiterEvent.WAIT;
+    }
+
+    /**
+     * Потребитель больше не читает (окно остановлено): официанты не ждут
+     * места в заполненном кольце, а сбрасывают события.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Снова ждать потребителя — перед новым запуском.
+     */
+    public void open() {
+        closed = false;
+    }
+
+    /**
+     * Передать все накопившиеся события получателю в порядке публикации.
+     * Вызывать только из одного потока.
+     *
+     * @return сколько событий обработано
+     */
+    public int drain(Waiter.WaiterListener sink) {
+        long seq = tail;
+        int count = 0;
+        while (true) {
+            int idx = (int) (seq & mask);
+            long packed = slots.get(idx);
+            if (packed == 0) {
+                break;
+            }
+            slots.lazySet(idx, 0);
+            seq++;
+            count++;
+            sink.onEvent(
+                (int) (packed >>> (CLIENT_BITS + EVENT_BITS + 1)),
+                WaiterEvent.of((int) ((packed >>> CLIENT_BITS) & EVENT_MASK) - 1),
+                (int) (packed & CLIENT_MASK),
+                ((packed >>> (CLIENT_BITS + EVENT_BITS)) & 1) != 0
+            );
+        }
+        if (count > 0) {
+            tail = seq;
+        }
+        return count;
+    }
+
+    /**
+     * Сколько событий сброшено из-за переполнения кольца (IDLE/WAIT или после close).
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private static long pack(int waiterId, WaiterEvent event, int clientId, boolean vip) {
+        long packed = (long) waiterId << (CLIENT_BITS + EVENT_BITS + 1);
+        if (vip) {
+            packed |= 1L << (CLIENT_BITS + EVENT_BITS);
+        }
+        packed |= (long) (event.ordinal() + 1) << CLIENT_BITS;
+        packed |= clientId & CLIENT_MASK;
+        return packed;
+    }
+}
@@ -0,0 +1,102 @@
+import java.awt.Color;
+import java.util.List;
+
+/**
+ * Кадры движения официантов для отрисовки.
+ *
+ * Аниматор двигает WaiterVisual фиксированными шагами и после каждого шага
+ * публикует неизменяемый снимок всех официантов. Хранятся два последних снимка —
+ * предыдущий и текущий — в одной паре за volatile-ссылкой: отрисовка всегда видит
+ * согласованную пару, не берёт блокировок и не задерживает аниматор.
+ * Между снимками отрисовка интерполирует по времени, поэтому движение плавное
+ * при любой частоте кадров (ценой отставания на один шаг).
+ */
+public final class WaiterFrames {
+
+    /**
+     * Официант на момент шага.
+     */
+    public record Snapshot(int id, Color color, double x, double y, WaiterState state, boolean hasFood) {
+
+        static Snapshot of(WaiterVisual w) {
+            return new Snapshot(w.id, w.color, w.x, w.y, w.state, w.hasFood);
+        }
+    }
+
+    /**
+     * Пара снимков: current — состояние на момент stepNanos (по System.nanoTime),
+     * previous — на шаг раньше. Массивы одинаковой длины и не меняются.
+     */
+    public record Frame(Snapshot[] previous, Snapshot[] current, long stepNanos, long stepLength) {
+
+        public int size() {
+            return current.length;
+        }
+
+        /**
+         * Доля пути от previous к current для момента nowNanos, в [0, 1].
+         */
+        public double alpha(long nowNanos) {
+            double alpha = (double) (nowNanos - stepNanos) / stepLength;
+            if (alpha < 0) {
+                return 0;
+            }
+            return Math.min(alpha, 1);
+        }
+
+        public double x(int i, double alpha) {
+            return previous[i].x() + (current[i].x() - previous[i].x()) * alpha;
+        }
+
+        public double y(int i, double alpha) {
+            return previous[i].y() + (current[i].y() - previous[i].y()) * alpha;
+        }
+    }
+
+    private static final Snapshot[] EMPTY = new Snapshot[0];
+
+    private final long stepLength;
+    private volatile Frame frame;
+
+    /**
+     * @param stepLength длина шага аниматора, нс
+     */
+    public WaiterFrames(long stepLength) {
+        this.stepLength = stepLength;
+        this.frame = new Frame(EMPTY, EMPTY, System.nanoTime(), stepLength);
+    }
+
+    /**
+     * Опубликовать состояние после шага, завершившегося в stepNanos.
+     * Вызывается только из потока, который двигает официантов.
+     */
+    public void publish(List<WaiterVisual> waiters, long stepNanos) {
+        Snapshot[] current = capture(waiters);
+        Snapshot[] previous = frame.current();
+        if (previous.length != current.length) {
+            previous = current;
+        }
+        frame = new Frame(previous, current, stepNanos, stepLength);
+    }
+
+    /**
+     * Начать заново без интерполяции: оба снимка — текущее состояние
+     * (после расстановки или сброса официантов, пока аниматор не работает).
+     */
+    public void reset(List<WaiterVisual> waiters) {
+        Snapshot[] current = capture(waiters);
+        frame = new Frame(current, current, System.nanoTime(), stepLength);
+    }
+
+    public Frame latest() {
+        return frame;
+    }
+
+    private static Snapshot[] capture(List<WaiterVisual> waiters) {
+        Snapshot[] snapshots = new Snapshot[waiters.size()];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = Snapshot.of(waiters.get(i));
+        }
+        return snapshots;
+    }
+}
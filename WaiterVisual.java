@@ -2,6 +2,9 @@ import java.awt.Color;
 
 /**
  * Визуальное представление официанта.
+ *
+ * Поля меняет только поток аниматора (и EDT, пока аниматор остановлен);
+ * отрисовка читает не их, а снимки из WaiterFrames.
  */
 public class WaiterVisual {
     
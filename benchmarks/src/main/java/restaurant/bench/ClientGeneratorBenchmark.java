@@ -0,0 +1,48 @@
+package restaurant.bench;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import restaurant.*;
+
+/**
+ * Генерация клиентов на виртуальных часах: сколько заявок в секунду
+ * выдаёт ClientGenerator без ожидания реальных задержек: прежний генератор
+ * и открытый пуассоновский поток с группами, где за шаг часов приходит много клиентов.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ClientGeneratorBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    @Param({"classic", "poisson:100000,party:2.5"})
+    public String arrivals;
+
+    private ArrivalProcess process;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Log.setLevel(Log.Level.OFF);
+        process = ArrivalProcess.parse(arrivals);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public int generate() {
+        SimulationEngine engine = new SimulationEngine();
+        BlockingDeque<Waiter.ClientRequest> queue = new LinkedBlockingDeque<>();
+        ClientGenerator generator = new ClientGenerator(queue, CLIENTS, engine);
+        generator.setArrivalProcess(process);
+        generator.start();
+        engine.run();
+        return queue.size();
+    }
+}
@@ -0,0 +1,57 @@
+package restaurant.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import restaurant.*;
+
+/**
+ * Сквозная пропускная способность ресторана без GUI.
+ * Счётчик served — обслуженные заказы в секунду реального времени.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeadlessRestaurantBenchmark {
+
+    private static final int CLIENTS = 100_000;
+
+    @Param({"2", "6"})
+    public int cooks;
+
+    @Param({"3", "20"})
+    public int waiters;
+
+    @Param({"1", "4"})
+    public int batch;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Orders {
+        public long served;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            served = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Log.setLevel(Log.Level.OFF);
+    }
+
+    @Benchmark
+    public HeadlessRestaurant.Result shift(Orders orders) {
+        HeadlessRestaurant restaurant = new HeadlessRestaurant(
+            cooks, waiters, Constants.KITCHEN_SIZE, Constants.CLIENT_QUEUE, CLIENTS);
+        restaurant.setBatching(batch, Constants.BATCH_MAX_DELAY_MS);
+        HeadlessRestaurant.Result result = restaurant.run();
+        orders.served += result.served();
+        return result;
+    }
+}
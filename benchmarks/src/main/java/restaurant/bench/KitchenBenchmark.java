@@ -0,0 +1,68 @@
+package restaurant.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import restaurant.*;
+
+/**
+ * Кухня: addOrder и передача заказа повару.
+ * Готовка мгновенная (timeScale = 0) — меряется только путь заказа через очередь.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class KitchenBenchmark {
+
+    @Param({"1", "4"})
+    public int cooks;
+
+    private Kitchen kitchen;
+    private OrderStore orders;
+
+    @Setup(Level.Trial)
+    public void open() {
+        Log.setLevel(Log.Level.OFF);
+        orders = new OrderStore();
+        kitchen = new Kitchen(cooks, Constants.KITCHEN_SIZE);
+        kitchen.setTimeScale(0);
+        kitchen.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        kitchen.shutdown();
+    }
+
+    /**
+     * Принять заказ без ожидания готовности (при полной очереди — отказ).
+     */
+    @Benchmark
+    public boolean addOrder() {
+        Order order = orders.create(1, Dish.SALAD, 1, false);
+        boolean accepted = kitchen.addOrder(order);
+        order.releaseWaiter();
+        return accepted;
+    }
+
+    /**
+     * Полный круг: заказ принят, повар взял, заказ готов.
+     */
+    @Benchmark
+    public boolean dispatch() {
+        Order order = orders.create(1, Dish.SALAD, 1, false);
+        while (!kitchen.addOrder(order)) {
+            order.releaseWaiter();
+            Thread.onSpinWait();
+            order = orders.create(1, Dish.SALAD, 1, false);
+        }
+        boolean ready = order.await(TimeUnit.SECONDS.toNanos(Constants.ORDER_TIMEOUT_SEC));
+        order.releaseWaiter();
+        return ready;
+    }
+}
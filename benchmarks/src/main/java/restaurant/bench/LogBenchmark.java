@@ -0,0 +1,45 @@
+package restaurant.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import restaurant.*;
+
+/**
+ * Стоимость вызова лога в горячем пути под конкуренцией 8 потоков.
+ * INFO — сообщение DEBUG отфильтровано, DEBUG — попадает в кольцевой буфер.
+ * Заменяет прежний Constants.log: он удалён вместе с глобальной блокировкой.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LogBenchmark {
+
+    @Param({"INFO", "DEBUG"})
+    public String level;
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int value;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // До первого обращения к Log: фоновый поток будет писать в никуда
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Log.setLevel(Log.Level.valueOf(level));
+    }
+
+    @Benchmark
+    public void debug(Counter counter) {
+        int orderId = counter.value++;
+        Log.debug(() -> "[КУХНЯ] Принят: Заказ #" + orderId);
+    }
+}
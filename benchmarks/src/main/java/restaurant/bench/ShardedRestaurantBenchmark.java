@@ -0,0 +1,54 @@
+package restaurant.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import restaurant.*;
+
+/**
+ * Масштабирование сети шардов по ядрам: на каждый шард — та же нагрузка,
+ * что у HeadlessRestaurantBenchmark. Счётчик served — обслуженные заказы
+ * в секунду реального времени; при линейном росте он пропорционален shards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedRestaurantBenchmark {
+
+    private static final int CLIENTS_PER_SHARD = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"ROUND_ROBIN", "TWO_CHOICES"})
+    public ShardedRestaurant.Policy policy;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Orders {
+        public long served;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            served = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Log.setLevel(Log.Level.OFF);
+    }
+
+    @Benchmark
+    public ShardedRestaurant.Result shift(Orders orders) throws InterruptedException {
+        ShardedRestaurant restaurant = new ShardedRestaurant(
+            shards, 2, 3, shards * CLIENTS_PER_SHARD, policy);
+        ShardedRestaurant.Result result = restaurant.run();
+        orders.served += result.total().served();
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package restaurant.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import restaurant.*;
+
+/**
+ * Поиск свободного стола и места клиента в залах разного размера.
+ * Зал заполнен наполовину; столы стоят квадратной сеткой, поэтому
+ * поиск ближайшего места идёт по SeatGrid, как в окне.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TableManagerBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    public int tables;
+
+    private TableManager manager;
+    private int seated;
+    private int probe;
+    private int nextClient;
+    private int hallSize;
+
+    @Setup(Level.Trial)
+    public void buildHall() {
+        int columns = (int) Math.ceil(Math.sqrt(tables));
+        List<HallLayout.Table> plan = new ArrayList<>(tables);
+        for (int i = 0; i < tables; i++) {
+            int x = (i % columns) * Constants.TABLE_SPACING_X;
+            int y = (i / columns) * Constants.TABLE_SPACING_Y;
+            if (i % 20 == 19) {
+                plan.add(new HallLayout.Table(i + 1, x, y, Constants.VIP_TABLE_WIDTH,
+                    Constants.VIP_TABLE_HEIGHT, true, Constants.VIP_TABLE_CAPACITY));
+            } else {
+                plan.add(new HallLayout.Table(i + 1, x, y, Constants.REGULAR_TABLE_WIDTH,
+                    Constants.REGULAR_TABLE_HEIGHT, false, Constants.REGULAR_TABLE_CAPACITY));
+            }
+        }
+        HallLayout layout = new HallLayout(plan);
+        hallSize = columns * Math.max(Constants.TABLE_SPACING_X, Constants.TABLE_SPACING_Y);
+
+        List<TableVisual> hall = new ArrayList<>(tables);
+        for (HallLayout.Table t : plan) {
+            TableVisual table = new TableVisual(t.id(), t.x(), t.y());
+            table.vipTable = t.vip();
+            table.setCapacity(t.capacity());
+            table.setSize(t.width(), t.height());
+            hall.add(table);
+        }
+        manager = new TableManager(hall, RandomSource.create(), layout);
+
+        int half = manager.getSeatCount() / 2;
+        int clientId = 1;
+        while (seated < half && manager.seatClient(clientId, clientId % 10 == 0) != null) {
+            seated++;
+            clientId++;
+        }
+        nextClient = clientId;
+    }
+
+    @Benchmark
+    public TableVisual findFreeTable() {
+        return manager.findFreeTable(false);
+    }
+
+    @Benchmark
+    public TableVisual findNearestFreeTable() {
+        probe = (probe + 7919) % hallSize;
+        return manager.findNearestFreeTable(false, probe, hallSize - probe);
+    }
+
+    @Benchmark
+    public TableVisual.Seat findSeatByClient() {
+        probe = probe % seated + 1;
+        return manager.findSeatByClient(probe);
+    }
+
+    @Benchmark
+    public TableVisual.Seat seatAndRelease() {
+        int clientId = nextClient++;
+        TableVisual.Seat seat = manager.seatClient(clientId, false);
+        manager.releaseSeat(clientId);
+        return seat;
+    }
+
+    @Benchmark
+    public TableVisual.Seat seatNearAndRelease() {
+        int clientId = nextClient++;
+        probe = (probe + 7919) % hallSize;
+        TableVisual.Seat seat = manager.seatClientNear(clientId, false, probe, hallSize - probe);
+        manager.releaseSeat(clientId);
+        return seat;
+    }
+}